@@ -30,6 +30,14 @@ import trader.exchanges.backtest.BacktestLoader;
 import trader.exchanges.backtest.BacktestResult;
 import trader.strategies.BasicStrategy;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 /**
  * Created by jkahn on 12/21/15.
  *
@@ -37,30 +45,48 @@ import trader.strategies.BasicStrategy;
  */
 public class Backtester {
 
-    private static BacktestResult backtestBitstamp() {
-        TimeSeries series = BacktestLoader.loadSeries("bitstampUSD.csv");
-        Strategy strategy = new BasicStrategy(series);
-
-        return new BacktestResult(series, 0.0025D, 0, strategy).test();
-    }
-
-    private static BacktestResult backtestBTCE() {
-        TimeSeries series = BacktestLoader.loadSeries("btceUSD.csv");
-        Strategy strategy = new BasicStrategy(series);
-
-        return new BacktestResult(series, 0.002D, 0, strategy).test();
-    }
-
-    private static BacktestResult backtestBitfinex() {
-        TimeSeries series = BacktestLoader.loadSeries("bitfinexUSD.csv");
-        Strategy strategy = new BasicStrategy(series);
+    /**
+     * The markets backtested by {@link #main(String[])}.
+     */
+    private static final List<Market> MARKETS = Arrays.asList(
+            new Market("BTCE", "btceUSD.csv", 0.002D),
+            new Market("Bitstamp", "bitstampUSD.csv", 0.0025D),
+            new Market("Bitfinex", "bitfinexUSD.csv", 0.002D));
 
-        return new BacktestResult(series, 0.002D, 0, strategy).test();
+    /**
+     * Load and backtest markets concurrently, one thread per market, so the
+     * wall time is the one of the slowest market.
+     *
+     * @param markets the markets to backtest.
+     * @return the result of each market, in the order of the markets.
+     */
+    public static List<BacktestResult> backtest(List<Market> markets) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1,
+                markets.size()));
+        try {
+            List<Future<BacktestResult>> futures = new ArrayList<>();
+            for (Market market : markets) {
+                futures.add(executor.submit(market::backtest));
+            }
+            List<BacktestResult> results = new ArrayList<>();
+            for (Future<BacktestResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backtesting",
+                    e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Backtest failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
-    private static void printBackTestResults(String mkt, TimeSeries series,
-                                             Strategy strategy) {
-        BacktestResult result = new BacktestResult(series, strategy).test();
+    private static void printBackTestResults(String mkt, BacktestResult
+            result) {
+        TimeSeries series = result.getTimeSeries();
         StringBuilder builder = new StringBuilder();
         builder.append(mkt + " Backtest: " + series
                 .getSeriesPeriodDescription());
@@ -92,23 +118,59 @@ public class Backtester {
                 .getRewardRiskRatio());
         builder.append("\n\t\tLinear Transaction Cost: " + result
                 .getLinearTransactionCost());
+        builder.append("\n\t\tSharpe Ratio (per tick): " + result
+                .getSharpeRatio());
+        builder.append("\n\t\tSortino Ratio (per tick): " + result
+                .getSortinoRatio());
+        double exposure = result.getExposure();
+        builder.append("\n\t\tExposure: " + exposure + " (" + exposure *
+                100D + "%)");
 
         System.out.println(builder.toString());
     }
 
     public static void main(String args[]) {
-        BacktestResult btceResult = backtestBTCE();
-        printBackTestResults("BTCE", btceResult.getTimeSeries(), btceResult
-                .getStrategy());
-        System.out.println();
-        BacktestResult bitstampResult = backtestBitstamp();
-        printBackTestResults("Bitstamp", bitstampResult.getTimeSeries(),
-                bitstampResult.getStrategy());
-        System.out.println();
-        BacktestResult bitfinexResult = backtestBitfinex();
-        printBackTestResults("Bitfinex", bitfinexResult.getTimeSeries(),
-                bitfinexResult.getStrategy());
-        System.out.println();
+        List<BacktestResult> results = backtest(MARKETS);
+        for (int i = 0; i < MARKETS.size(); i++) {
+            printBackTestResults(MARKETS.get(i).name, results.get(i));
+            System.out.println();
+        }
+    }
+
+    /**
+     * A market to backtest: a file of trades and the cost of its orders.
+     */
+    public static class Market {
+
+        private final String name;
+
+        private final String fileName;
+
+        private final double transactionPercentCost;
+
+        /**
+         * @param name                   the name of the market, to print the
+         *                               results.
+         * @param fileName               the file of the trades of the
+         *                               market, in the backtest resources.
+         * @param transactionPercentCost the cost of an order, as a ratio of
+         *                               its amount.
+         */
+        public Market(String name, String fileName, double
+                transactionPercentCost) {
+            this.name = name;
+            this.fileName = fileName;
+            this.transactionPercentCost = transactionPercentCost;
+        }
+
+        private BacktestResult backtest() {
+            TimeSeries series = BacktestLoader.loadSeries(this.fileName);
+            Strategy strategy = new BasicStrategy(series, true);
+
+            return new BacktestResult(series, this.transactionPercentCost, 0,
+                    strategy).test();
+        }
+
     }
 
 }
@@ -33,6 +33,7 @@ import com.xeiam.xchange.service.polling.marketdata.PollingMarketDataService;
 import eu.verdelhan.ta4j.*;
 import trader.TickListener;
 import trader.exchanges.utils.BitfinexUtils;
+import trader.indicators.IndicatorRegistry;
 import trader.strategies.BasicStrategy;
 
 import java.io.IOException;
@@ -210,6 +211,19 @@ public class BitfinexTrader implements TickListener {
         }
     }
 
+    /**
+     * Build the strategy to trade with. The double indicators only keep the
+     * values of the ticks kept by the series, so the memory used doesn't
+     * grow with the number of ticks received. On an incremental registry,
+     * each new tick also costs a constant time whatever the time frames.
+     *
+     * @param registry the indicators of the series to trade on.
+     * @return the strategy.
+     */
+    private static Strategy buildStrategy(IndicatorRegistry registry) {
+        return new BasicStrategy(registry, true);
+    }
+
     @Override
     public synchronized void tickReceived(Tick tick) {
         timeSeries.addTick(tick);
@@ -229,7 +243,8 @@ public class BitfinexTrader implements TickListener {
         }
 
         if (strategy == null) {
-            strategy = new BasicStrategy(timeSeries);
+            strategy = buildStrategy(new IndicatorRegistry(timeSeries,
+                    true));
         }
 
         // There's a new tick
@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import eu.verdelhan.ta4j.Decimal;
+import eu.verdelhan.ta4j.Tick;
+import org.joda.time.DateTime;
+import org.joda.time.Period;
+
+/**
+ * A {@link eu.verdelhan.ta4j.Tick Tick} built from already aggregated
+ * values (e.g. read back from a {@link TickCache}) rather than from
+ * individual trades. More trades can still be added to it.
+ *
+ * @author Joshua Kahn
+ */
+public class AggregatedTick extends Tick {
+
+    private Decimal openPrice;
+    private Decimal maxPrice;
+    private Decimal minPrice;
+    private Decimal closePrice;
+    private Decimal amount;
+    private Decimal volume;
+    private int trades;
+
+    public AggregatedTick(Period timePeriod, DateTime endTime, Decimal
+            openPrice, Decimal maxPrice, Decimal minPrice, Decimal
+            closePrice, Decimal amount, Decimal volume, int trades) {
+        super(timePeriod, endTime);
+        this.openPrice = openPrice;
+        this.maxPrice = maxPrice;
+        this.minPrice = minPrice;
+        this.closePrice = closePrice;
+        this.amount = amount;
+        this.volume = volume;
+        this.trades = trades;
+    }
+
+    public AggregatedTick(Period timePeriod, DateTime endTime, double
+            openPrice, double maxPrice, double minPrice, double closePrice,
+                          double amount, double volume, int trades) {
+        this(timePeriod, endTime, Decimal.valueOf(openPrice), Decimal
+                .valueOf(maxPrice), Decimal.valueOf(minPrice), Decimal
+                .valueOf(closePrice), Decimal.valueOf(amount), Decimal
+                .valueOf(volume), trades);
+    }
+
+    /**
+     * Merge two ticks covering the same period into one.
+     *
+     * @param first  the tick holding the earliest trades.
+     * @param second the tick holding the latest trades.
+     * @return a tick holding the trades of both ticks.
+     */
+    public static AggregatedTick merge(Tick first, Tick second) {
+        Decimal maxPrice = first.getMaxPrice().isLessThan(second
+                .getMaxPrice()) ? second.getMaxPrice() : first.getMaxPrice();
+        Decimal minPrice = first.getMinPrice().isGreaterThan(second
+                .getMinPrice()) ? second.getMinPrice() : first.getMinPrice();
+        return new AggregatedTick(first.getTimePeriod(), first.getEndTime(),
+                first.getOpenPrice(), maxPrice, minPrice, second
+                .getClosePrice(), first.getAmount().plus(second.getAmount
+                ()), first.getVolume().plus(second.getVolume()), first
+                .getTrades() + second.getTrades());
+    }
+
+    @Override
+    public Decimal getOpenPrice() {
+        return this.openPrice;
+    }
+
+    @Override
+    public Decimal getMaxPrice() {
+        return this.maxPrice;
+    }
+
+    @Override
+    public Decimal getMinPrice() {
+        return this.minPrice;
+    }
+
+    @Override
+    public Decimal getClosePrice() {
+        return this.closePrice;
+    }
+
+    @Override
+    public Decimal getAmount() {
+        return this.amount;
+    }
+
+    @Override
+    public Decimal getVolume() {
+        return this.volume;
+    }
+
+    @Override
+    public int getTrades() {
+        return this.trades;
+    }
+
+    @Override
+    public boolean isBearish() {
+        return (this.openPrice != null) && (this.closePrice != null) &&
+                this.closePrice.isLessThan(this.openPrice);
+    }
+
+    @Override
+    public boolean isBullish() {
+        return (this.openPrice != null) && (this.closePrice != null) &&
+                this.openPrice.isLessThan(this.closePrice);
+    }
+
+    @Override
+    public void addTrade(Decimal tradeAmount, Decimal tradePrice) {
+        if (this.openPrice == null) {
+            this.openPrice = tradePrice;
+        }
+        this.closePrice = tradePrice;
+        if (this.maxPrice == null || this.maxPrice.isLessThan(tradePrice)) {
+            this.maxPrice = tradePrice;
+        }
+        if (this.minPrice == null || this.minPrice.isGreaterThan
+                (tradePrice)) {
+            this.minPrice = tradePrice;
+        }
+        this.amount = this.amount.plus(tradeAmount);
+        this.volume = this.volume.plus(tradeAmount.multipliedBy(tradePrice));
+        this.trades++;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{end time: %1s, close price: %2s, open " +
+                "price: %3s, min price: %4s, max price: %5s, volume: %6s}",
+                getEndTime(), this.closePrice, this.openPrice, this
+                        .minPrice, this.maxPrice, this.volume);
+    }
+
+}
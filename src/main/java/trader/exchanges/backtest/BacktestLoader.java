@@ -27,17 +27,27 @@ import com.opencsv.CSVReader;
 import eu.verdelhan.ta4j.Tick;
 import eu.verdelhan.ta4j.TimeSeries;
 import org.joda.time.DateTime;
-import org.joda.time.Instant;
-import org.joda.time.Period;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Created by jkahn on 12/21/15.
@@ -48,25 +58,304 @@ public class BacktestLoader {
 
     private static final int SECONDS_PER_TICK = 60;
 
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+
     public static TimeSeries loadSeries(String fileName) {
 
-        // Reading all lines of the CSV file
+        // Reading the ticks from the binary cache when it is up to date
+        Path dataFile = getDataFile(fileName);
+        if (dataFile != null) {
+            try {
+                List<Tick> ticks = TickCache.read(dataFile, SECONDS_PER_TICK);
+                if (ticks != null) {
+                    return new TimeSeries(fileName, ticks);
+                }
+            } catch (IOException e) {
+                Logger.getLogger(BacktestLoader.class.getName()).log(Level
+                        .WARNING, "Unable to read the tick cache", e);
+            }
+        }
+
+        List<Tick> ticks = null;
+        if (dataFile != null && !isCompressed(fileName)) {
+            // Parsing the CSV file on all cores
+            try {
+                ticks = ChunkedTradeLoader.loadTicks(dataFile,
+                        SECONDS_PER_TICK);
+            } catch (IOException e) {
+                Logger.getLogger(BacktestLoader.class.getName()).log(Level
+                        .SEVERE, "Unable to load trades from CSV", e);
+            }
+        } else {
+            ticks = streamTicks(fileName, SECONDS_PER_TICK, 1);
+        }
+
+        // Caching the ticks so that the next run doesn't parse the CSV again
+        if (dataFile != null && ticks != null) {
+            try {
+                TickCache.write(dataFile, SECONDS_PER_TICK, ticks);
+            } catch (IOException e) {
+                Logger.getLogger(BacktestLoader.class.getName()).log(Level
+                        .WARNING, "Unable to write the tick cache", e);
+            }
+        }
+
+        return new TimeSeries(fileName, ticks);
+    }
+
+    /**
+     * Load the ticks of a time range only. A sparse index of the CSV file,
+     * built once and stored next to it, is used to seek straight to the
+     * trades of the range, so the time needed depends on the length of the
+     * range rather than on the size of the file.
+     * <p>
+     * The ticks are aligned with the ones of {@link #loadSeries(String)
+     * loadSeries(fileName)}, the first and last ticks only hold the trades
+     * inside the range.
+     *
+     * @param fileName  the name of the CSV file, it must be an uncompressed
+     *                  file on disk.
+     * @param beginTime the time of the first trade to load.
+     * @param endTime   the time (excluded) of the last trade to load.
+     * @return the series of the trades between {@code beginTime} and {@code
+     * endTime}.
+     */
+    public static TimeSeries loadSeries(String fileName, DateTime beginTime,
+                                        DateTime endTime) {
+        Path dataFile = getDataFile(fileName);
+        if (dataFile == null || isCompressed(fileName)) {
+            throw new IllegalArgumentException(fileName + " must be an " +
+                    "uncompressed file on disk to be loaded by time range");
+        }
+
+        List<Tick> ticks = null;
+        try {
+            TradeIndex index = TradeIndex.load(dataFile);
+            ticks = loadTicks(dataFile, index, (beginTime.getMillis() + 999L)
+                    / 1000L, (endTime.getMillis() + 999L) / 1000L,
+                    SECONDS_PER_TICK);
+        } catch (IOException e) {
+            Logger.getLogger(BacktestLoader.class.getName()).log(Level
+                    .SEVERE, "Unable to load trades from CSV", e);
+        }
+
+        return new TimeSeries(fileName, ticks);
+    }
+
+    /**
+     * Load a series that can be kept up to date with the trades appended to
+     * the CSV file, see {@link IncrementalLoader#refresh()}.
+     *
+     * @param fileName the name of the CSV file, it must be an uncompressed
+     *                 file on disk.
+     * @return the loader holding the series.
+     * @throws IOException if the trades can't be read.
+     */
+    public static IncrementalLoader followSeries(String fileName) throws
+            IOException {
+        Path dataFile = getDataFile(fileName);
+        if (dataFile == null || isCompressed(fileName)) {
+            throw new IllegalArgumentException(fileName + " must be an " +
+                    "uncompressed file on disk to be followed");
+        }
+        return new IncrementalLoader(dataFile, fileName, SECONDS_PER_TICK);
+    }
+
+    /**
+     * Load a history of trades sharded in several CSV files (e.g. one file
+     * per month) as one series. The shards are read concurrently, overlapping
+     * trades at the boundaries of the shards are only kept once, see
+     * {@link ShardedTradeLoader}.
+     *
+     * @param pattern a directory of {@code /csv_data/} holding the shards,
+     *                or a glob matching the shards in such a directory
+     *                (e.g. {@code bitstampUSD/2015-*.csv.gz}).
+     * @return the series of the trades of every shard.
+     */
+    public static TimeSeries loadShardedSeries(String pattern) {
+        Path dataDirectory = getDataFile("");
+        if (dataDirectory == null) {
+            throw new IllegalArgumentException("Shards must be files on disk");
+        }
+
+        Path directory = dataDirectory.resolve(pattern);
+        String glob = "*.{csv,csv.gz}";
+        if (!Files.isDirectory(directory)) {
+            glob = directory.getFileName().toString();
+            directory = directory.getParent();
+        }
+
+        List<Tick> ticks = null;
+        List<Path> shards = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream
+                (directory, glob)) {
+            for (Path shard : stream) {
+                String shardName = shard.getFileName().toString();
+                // Skipping the files built next to the shards
+                if (!shardName.endsWith(TickCache.EXTENSION) && !shardName
+                        .endsWith(TradeIndex.EXTENSION) && !shardName
+                        .endsWith(".tmp")) {
+                    shards.add(shard);
+                }
+            }
+            ticks = ShardedTradeLoader.loadTicks(shards, SECONDS_PER_TICK);
+        } catch (IOException e) {
+            Logger.getLogger(BacktestLoader.class.getName()).log(Level
+                    .SEVERE, "Unable to load trades from CSV", e);
+        }
+
+        return new TimeSeries(pattern, ticks);
+    }
+
+    /**
+     * Load several series of different tick lengths from a single read of
+     * the trades. Only the shortest ticks are built from the trades, every
+     * longer tick is rolled up from the shorter ticks it is made of.
+     * <p>
+     * Every tick length must be a multiple of the shortest one. All the
+     * ticks are aligned on a multiple of the longest tick length (e.g. on
+     * midnight UTC for daily ticks). The binary tick cache isn't used.
+     *
+     * @param fileName     the name of the CSV file.
+     * @param ticksLengths the length (in seconds) of the ticks of every
+     *                     series.
+     * @return the series, by length of their ticks.
+     */
+    public static Map<Integer, TimeSeries> loadSeries(String fileName, int...
+            ticksLengths) {
+        if (ticksLengths.length == 0) {
+            throw new IllegalArgumentException("At least one tick length is " +
+                    "needed");
+        }
+        int[] lengths = Arrays.stream(ticksLengths).distinct().sorted()
+                .toArray();
+        int shortestLength = lengths[0];
+        int longestLength = lengths[lengths.length - 1];
+        for (int length : lengths) {
+            if (length <= 0 || length % shortestLength != 0) {
+                throw new IllegalArgumentException("Tick lengths must be " +
+                        "multiples of the shortest tick length");
+            }
+        }
+
+        List<Tick> shortestTicks = null;
+        Path dataFile = getDataFile(fileName);
+        if (dataFile != null && !isCompressed(fileName)) {
+            try {
+                shortestTicks = ChunkedTradeLoader.loadTicks(dataFile,
+                        shortestLength, longestLength);
+            } catch (IOException e) {
+                Logger.getLogger(BacktestLoader.class.getName()).log(Level
+                        .SEVERE, "Unable to load trades from CSV", e);
+            }
+        } else {
+            shortestTicks = streamTicks(fileName, shortestLength,
+                    longestLength);
+        }
+
+        Map<Integer, List<Tick>> ticksByLength = new TreeMap<>();
+        if (shortestTicks != null && !shortestTicks.isEmpty()) {
+            ticksByLength.put(shortestLength, shortestTicks);
+            long firstTimestamp = shortestTicks.get(0).getBeginTime()
+                    .getMillis() / 1000L;
+            long beginTimestamp = firstTimestamp - (firstTimestamp %
+                    longestLength);
+            for (int i = 1; i < lengths.length; i++) {
+                // Rolling up the longest ticks this length is a multiple of
+                List<Tick> shorterTicks = shortestTicks;
+                for (int j = i - 1; j > 0; j--) {
+                    if (lengths[i] % lengths[j] == 0) {
+                        shorterTicks = ticksByLength.get(lengths[j]);
+                        break;
+                    }
+                }
+                TickAggregator aggregator = new TickAggregator
+                        (beginTimestamp, lengths[i]);
+                for (Tick tick : shorterTicks) {
+                    aggregator.addTick(tick);
+                }
+                ticksByLength.put(lengths[i], aggregator.getTicks());
+            }
+        }
+
+        Map<Integer, TimeSeries> series = new TreeMap<>();
+        for (int length : lengths) {
+            series.put(length, new TimeSeries(fileName, ticksByLength
+                    .getOrDefault(length, new ArrayList<>())));
+        }
+        return series;
+    }
+
+    /**
+     * Build the ticks of the trades of a time range.
+     *
+     * @param dataFile       the CSV file.
+     * @param index          the index of {@code dataFile}.
+     * @param beginTimestamp the time (UNIX time seconds) of the first trade
+     *                       to load.
+     * @param endTimestamp   the time (UNIX time seconds, excluded) of the
+     *                       last trade to load.
+     * @param duration       the length (in seconds) of each tick.
+     * @return the non-empty ticks, in chronological order.
+     * @throws IOException if the trades can't be read.
+     */
+    private static List<Tick> loadTicks(Path dataFile, TradeIndex index, long
+            beginTimestamp, long endTimestamp, int duration) throws
+            IOException {
+        long firstTimestamp = index.getFirstTimestamp();
+        if (firstTimestamp < 0 || beginTimestamp >= endTimestamp) {
+            return new ArrayList<>();
+        }
+
+        // Aligning the ticks on the ones of the whole series
+        long tickTimestamp = Math.max(firstTimestamp, beginTimestamp);
+        TickAggregator aggregator = new TickAggregator(firstTimestamp + (((
+                tickTimestamp - firstTimestamp) / duration) * duration),
+                duration);
+
+        try (TradeFileReader reader = new TradeFileReader(FileChannel.open
+                (dataFile, StandardOpenOption.READ), index.getBeginOffset
+                (beginTimestamp), index.getEndOffset(endTimestamp))) {
+            while (reader.next()) {
+                long tradeTimestamp = reader.getTimestamp();
+                if (tradeTimestamp >= beginTimestamp && tradeTimestamp <
+                        endTimestamp) {
+                    aggregator.addTrade(tradeTimestamp, reader.getPrice(),
+                            reader.getAmount());
+                }
+            }
+        }
+        return aggregator.getTicks();
+    }
+
+    /**
+     * Stream the trades of the {@code /csv_data/} resource {@code fileName}
+     * into ticks, one line at a time. Gzip compressed files are decompressed
+     * on another thread while the trades are parsed.
+     *
+     * @param fileName  the name of the CSV file.
+     * @param duration  the length (in seconds) of each tick.
+     * @param alignment the ticks begin at the timestamp of the first trade
+     *                  rounded down to a multiple of {@code alignment}
+     *                  seconds.
+     * @return the non-empty ticks, or null if the trades can't be read.
+     */
+    private static List<Tick> streamTicks(String fileName, int duration, int
+            alignment) {
+        // Streaming the trades of the CSV file into ticks
         InputStream stream = BacktestLoader.class.getResourceAsStream
                 ("/csv_data/" + fileName);
         CSVReader csvReader = null;
-        List<String[]> lines = null;
+        List<Tick> ticks = null;
         try {
+            if (isCompressed(fileName)) {
+                stream = new ReadAheadInputStream(new GZIPInputStream(stream,
+                        GZIP_BUFFER_SIZE), "Decompressing " + fileName);
+            }
             csvReader = new CSVReader(new InputStreamReader(stream, Charset
                     .forName("UTF-8")), ',');
-            /*
-             * This call can use an absurd amount of memory for large csv
-             * files. It can cause an OutOfMemoryError on csv files of only a
-             * few hundred MB.
-             *
-             * CONSIDER YESELF WARNED!
-             */
-            lines = csvReader.readAll();
-            lines.remove(0); // Removing header line
+            csvReader.readNext(); // Skipping header line
+            ticks = aggregateTrades(csvReader, duration, alignment);
         } catch (IOException e) {
             Logger.getLogger(BacktestLoader.class.getName()).log(Level
                     .SEVERE, "Unable to load trades from CSV", e);
@@ -80,68 +369,78 @@ public class BacktestLoader {
             }
         }
 
-        List<Tick> ticks = null;
-        if ((lines != null) && !lines.isEmpty()) {
-
-            // Getting the first and last trades timestamps
-            DateTime beginTime = new DateTime(Long.parseLong(lines.get(0)[0])
-                    * 1000);
-            DateTime endTime = new DateTime(Long.parseLong(lines.get(lines
-                    .size() - 1)[0]) * 1000);
-            if (beginTime.isAfter(endTime)) {
-                Instant beginInstant = beginTime.toInstant();
-                Instant endInstant = endTime.toInstant();
-                beginTime = new DateTime(endInstant);
-                endTime = new DateTime(beginInstant);
-            }
-
-            // Building the empty ticks (every 300 seconds, yeah welcome in
-            // Bitcoin world)
-            ticks = buildEmptyTicks(beginTime, endTime, SECONDS_PER_TICK);
-            // Filling the ticks with trades
-            int beginTimeInt = (int) (beginTime.toDate().getTime() / 1000);
-            for (String[] tradeLine : lines) {
-                DateTime tradeTimestamp = new DateTime(Long.parseLong
-                        (tradeLine[0]) * 1000);
-                int index = (int) ((tradeTimestamp.toDate().getTime() / 1000)
-                        - beginTimeInt) / SECONDS_PER_TICK;
-                double tradePrice = Double.parseDouble(tradeLine[1]);
-                double tradeAmount = Double.parseDouble(tradeLine[2]);
-                ticks.get(index).addTrade(tradeAmount, tradePrice);
-            }
-            // Removing still empty ticks
-            removeEmptyTicks(ticks);
-        }
-
-        return new TimeSeries(fileName, ticks);
+        return ticks;
     }
 
-    private static List<Tick> buildEmptyTicks(DateTime beginTime, DateTime
-            endTime, int duration) {
-
-        List<Tick> emptyTicks = new ArrayList<>();
-
-        Period tickTimePeriod = Period.seconds(duration);
-        DateTime tickEndTime = beginTime;
-        do {
-            tickEndTime = tickEndTime.plus(tickTimePeriod);
-            emptyTicks.add(new Tick(tickTimePeriod, tickEndTime));
-        } while (tickEndTime.isBefore(endTime));
+    /**
+     * @param fileName the name of a CSV file.
+     * @return true iff the file is gzip compressed.
+     */
+    private static boolean isCompressed(String fileName) {
+        return fileName.endsWith(".gz");
+    }
 
-        return emptyTicks;
+    /**
+     * Get the CSV file backing the {@code /csv_data/} resource {@code
+     * fileName}.
+     *
+     * @param fileName the name of the CSV file.
+     * @return the CSV file, or null if the resource isn't a file on disk
+     * (e.g. it is packed in a jar).
+     */
+    private static Path getDataFile(String fileName) {
+        URL url = BacktestLoader.class.getResource("/csv_data/" + fileName);
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
     }
 
     /**
-     * Remove ticks that have no trades.
+     * Fold every trade read from {@code csvReader} into the tick it belongs
+     * to. Only one line is held in memory at a time, so the memory used
+     * depends on the number of ticks rather than on the number of trades.
+     * <p>
+     * Trades are expected in chronological order. The ticks are aligned on
+     * the timestamp of the first trade, trades older than it are skipped.
+     * Only the ticks receiving trades are created.
      *
-     * @param ticks the list to remove empty ticks from.
+     * @param csvReader the reader positioned on the first trade.
+     * @param duration  the length (in seconds) of each tick.
+     * @param alignment the ticks begin at the timestamp of the first trade
+     *                  rounded down to a multiple of {@code alignment}
+     *                  seconds.
+     * @return the non-empty ticks, in chronological order.
+     * @throws IOException if the trades can't be read.
      */
-    private static void removeEmptyTicks(List<Tick> ticks) {
-        for (int i = ticks.size() - 1; i >= 0; i--) {
-            if (ticks.get(i).getTrades() == 0) {
-                ticks.remove(i);
-            }
+    private static List<Tick> aggregateTrades(CSVReader csvReader, int
+            duration, int alignment) throws IOException {
+
+        String[] tradeLine = csvReader.readNext();
+        if (tradeLine == null) {
+            return new ArrayList<>();
+        }
+
+        long beginTimestamp = Long.parseLong(tradeLine[0]);
+        TickAggregator aggregator = new TickAggregator(beginTimestamp -
+                (beginTimestamp % alignment), duration);
+        do {
+            long tradeTimestamp = Long.parseLong(tradeLine[0]);
+            double tradePrice = Double.parseDouble(tradeLine[1]);
+            double tradeAmount = Double.parseDouble(tradeLine[2]);
+            aggregator.addTrade(tradeTimestamp, tradePrice, tradeAmount);
+        } while ((tradeLine = csvReader.readNext()) != null);
+
+        if (aggregator.getSkippedTrades() > 0) {
+            Logger.getLogger(BacktestLoader.class.getName()).log(Level
+                    .WARNING, "Skipped " + aggregator.getSkippedTrades() + " " +
+                    "trades older than the first trade");
         }
+        return aggregator.getTicks();
     }
 
 }
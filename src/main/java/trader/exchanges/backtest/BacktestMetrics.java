@@ -0,0 +1,262 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import eu.verdelhan.ta4j.Order;
+import eu.verdelhan.ta4j.TimeSeries;
+import eu.verdelhan.ta4j.Trade;
+import eu.verdelhan.ta4j.TradingRecord;
+
+import java.util.List;
+
+/**
+ * The metrics of a trading record, computed in a single pass over its
+ * trades and its cash flow instead of one pass per ta4j criterion.
+ * <p/>
+ * The metrics follow ta4j's criteria: the total profit and the buy and
+ * hold profit are ratios, the profitable trades ratio is NaN without
+ * trades, the maximum drawdown is taken on the
+ * {@link eu.verdelhan.ta4j.analysis.CashFlow CashFlow} and the linear
+ * transaction cost is {@code percentCost * amount + fixedCost} per order.
+ * The Sharpe and Sortino ratios are those of the returns of the cash flow
+ * from one tick to the next, with no risk free rate and not annualized.
+ * <p/>
+ * Like ta4j, the trades are priced at the close price of the ticks of
+ * their orders, unless the metrics are computed at the prices of the
+ * orders, for orders filled within a tick.
+ *
+ * @author Joshua Kahn
+ */
+final class BacktestMetrics {
+
+    int numberOfTrades;
+
+    double profit = 1D;
+    double buyAndHoldProfit = Double.NaN;
+    double profitableTradesRatio;
+    double maxDrawdown;
+    double rewardRiskRatio;
+    double linearTransactionCost;
+
+    double sharpeRatio = Double.NaN;
+    double sortinoRatio = Double.NaN;
+
+    /**
+     * The ratio of the ticks spent in a trade.
+     */
+    double exposure;
+
+    /**
+     * The ratio of the amount traded after each closed trade to the amount
+     * traded before it, its costs included.
+     */
+    double[] tradeProfits;
+
+    private final TimeSeries series;
+
+    private final double percentCost;
+
+    private final double fixedCost;
+
+    private final boolean atOrderPrices;
+
+    /**
+     * The amount traded by the next trade, after the costs and profits of
+     * the previous ones.
+     */
+    private double tradedAmount;
+
+    private int profitableTrades;
+
+    private BacktestMetrics(TimeSeries series, double initialAmount, double
+            percentCost, double fixedCost, boolean atOrderPrices) {
+        this.series = series;
+        this.percentCost = percentCost;
+        this.fixedCost = fixedCost;
+        this.atOrderPrices = atOrderPrices;
+        this.tradedAmount = initialAmount;
+    }
+
+    /**
+     * @param series        the series the record was run on.
+     * @param tradingRecord the trades.
+     * @param initialAmount the amount traded by the first trade.
+     * @param percentCost   the cost of an order, as a ratio of its amount.
+     * @param fixedCost     the fixed cost of an order.
+     * @param atOrderPrices true to price the trades at the prices of their
+     *                      orders instead of the close prices.
+     * @return the metrics of the record.
+     */
+    static BacktestMetrics of(TimeSeries series, TradingRecord
+            tradingRecord, double initialAmount, double percentCost, double
+                                      fixedCost, boolean atOrderPrices) {
+        BacktestMetrics metrics = new BacktestMetrics(series, initialAmount,
+                percentCost, fixedCost, atOrderPrices);
+        metrics.compute(tradingRecord);
+        return metrics;
+    }
+
+    private void compute(TradingRecord tradingRecord) {
+        List<Trade> trades = tradingRecord.getTrades();
+        this.tradeProfits = new double[trades.size()];
+        int next = 0;
+        int begin = this.series.getBegin();
+        int end = this.series.getEnd();
+
+        if (begin >= 0 && end >= begin) {
+            this.buyAndHoldProfit = close(end) / close(begin);
+
+            // The cash flow, as ta4j's CashFlow, along with its drawdowns,
+            // its returns and the ticks spent in a trade
+            double value = 1D;
+            double peak = 0D;
+            double entryValue = 1D;
+            boolean entered = false;
+            double returns = 0D;
+            double squaredReturns = 0D;
+            double squaredLosses = 0D;
+            int exposedTicks = 0;
+            for (int i = begin; i <= end; i++) {
+                double close = close(i);
+                double previousValue = value;
+                while (next < trades.size() && trades.get(next).getExit()
+                        .getIndex() < i) {
+                    // Closed before the series, e.g. in a walkover window
+                    Trade trade = trades.get(next++);
+                    if (!entered) {
+                        value *= ratio(trade, exitPrice(trade));
+                    }
+                    entered = false;
+                    addTrade(trade);
+                    previousValue = value;
+                }
+                if (next < trades.size() && trades.get(next).getEntry()
+                        .getIndex() < i) {
+                    Trade trade = trades.get(next);
+                    if (!entered) {
+                        entryValue = value;
+                        entered = true;
+                    }
+                    boolean exited = trade.getExit().getIndex() == i;
+                    value = entryValue * ratio(trade, exited ? exitPrice
+                            (trade) : close);
+                    exposedTicks++;
+                    if (exited) {
+                        next++;
+                        entered = false;
+                        addTrade(trade);
+                    }
+                }
+
+                if (value > peak) {
+                    peak = value;
+                }
+                this.maxDrawdown = Math.max(this.maxDrawdown, (peak - value) /
+                        peak);
+                if (i > begin) {
+                    double tickReturn = value / previousValue - 1D;
+                    returns += tickReturn;
+                    squaredReturns += tickReturn * tickReturn;
+                    if (tickReturn < 0D) {
+                        squaredLosses += tickReturn * tickReturn;
+                    }
+                }
+            }
+
+            int periods = end - begin;
+            if (periods > 0) {
+                double mean = returns / periods;
+                double deviation = Math.sqrt(Math.max(0D, squaredReturns /
+                        periods - mean * mean));
+                double downsideDeviation = Math.sqrt(squaredLosses / periods);
+                this.sharpeRatio = deviation > 0D ? mean / deviation : Double
+                        .NaN;
+                this.sortinoRatio = downsideDeviation > 0D ? mean /
+                        downsideDeviation : Double.NaN;
+                this.exposure = (double) exposedTicks / periods;
+            }
+        }
+
+        // Closed after the series, e.g. by TimeSeries.run
+        while (next < trades.size()) {
+            addTrade(trades.get(next++));
+        }
+        Trade currentTrade = tradingRecord.getCurrentTrade();
+        if (currentTrade.isOpened()) {
+            this.linearTransactionCost += orderCost(this.tradedAmount);
+        }
+
+        this.profitableTradesRatio = (double) this.profitableTrades / this
+                .numberOfTrades;
+        this.rewardRiskRatio = this.profit / this.maxDrawdown;
+    }
+
+    /**
+     * Add the profit and the costs of a closed trade.
+     */
+    private void addTrade(Trade trade) {
+        double tradeProfit = ratio(trade, exitPrice(trade));
+        this.numberOfTrades++;
+        this.profit *= tradeProfit;
+        if (tradeProfit > 1D) {
+            this.profitableTrades++;
+        }
+
+        double entryCost = orderCost(this.tradedAmount);
+        double exitCost = orderCost((this.tradedAmount - entryCost) *
+                tradeProfit);
+        this.linearTransactionCost += entryCost + exitCost;
+        double amount = (this.tradedAmount - entryCost - exitCost) *
+                tradeProfit;
+        this.tradeProfits[this.numberOfTrades - 1] = amount / this
+                .tradedAmount;
+        this.tradedAmount = amount;
+    }
+
+    /**
+     * @return the ratio of a price to the entry price of a trade, inverted
+     * for a trade entered by selling.
+     */
+    private double ratio(Trade trade, double price) {
+        Order entry = trade.getEntry();
+        double entryPrice = this.atOrderPrices ? entry.getPrice().toDouble()
+                : close(entry.getIndex());
+        return entry.isBuy() ? price / entryPrice : entryPrice / price;
+    }
+
+    private double exitPrice(Trade trade) {
+        Order exit = trade.getExit();
+        return this.atOrderPrices ? exit.getPrice().toDouble() : close(exit
+                .getIndex());
+    }
+
+    private double orderCost(double amount) {
+        return this.percentCost * amount + this.fixedCost;
+    }
+
+    private double close(int index) {
+        return this.series.getTick(index).getClosePrice().toDouble();
+    }
+
+}
@@ -23,10 +23,21 @@
 
 package trader.exchanges.backtest;
 
+import eu.verdelhan.ta4j.Decimal;
+import eu.verdelhan.ta4j.AnalysisCriterion;
+import eu.verdelhan.ta4j.Rule;
 import eu.verdelhan.ta4j.Strategy;
 import eu.verdelhan.ta4j.TimeSeries;
+import eu.verdelhan.ta4j.Trade;
 import eu.verdelhan.ta4j.TradingRecord;
-import eu.verdelhan.ta4j.analysis.criteria.*;
+import eu.verdelhan.ta4j.analysis.criteria.TotalProfitCriterion;
+import eu.verdelhan.ta4j.trading.rules.AbstractRule;
+import eu.verdelhan.ta4j.trading.rules.FixedRule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
 
 /**
  * Created by jkahn on 12/24/15.
@@ -37,14 +48,8 @@ public class BacktestResult {
 
     private static final double INITIAL_AMOUNT = 1D;
 
-    private int numberOfTrades;
-
-    private double profit;
-    private double buyAndHoldProfit;
-    private double profitableTradesRatio;
-    private double maxDrawdown;
-    private double rewardRiskRatio;
-    private double linearTransactionCost;
+    // The results of each strategy, in the order of the strategies
+    private BacktestMetrics[] metrics;
 
     private double transactionPercentCost;
     private double transactionFixedCost;
@@ -53,10 +58,18 @@ public class BacktestResult {
 
     private Strategy[] strategies;
 
-    private TradingRecord tradingRecord;
+    private TradingRecord[] tradingRecords;
 
     private boolean backtestRan;
 
+    /**
+     * True to price the trades at the prices of their orders, instead of
+     * the close prices of their ticks.
+     */
+    private boolean atOrderPrices;
+
+    private List<WalkoverWindow> windows = Collections.emptyList();
+
     public BacktestResult(TimeSeries timeSeries, double
             transactionPercentCost, double transactionFixedCost, Strategy...
                                   strategies) {
@@ -82,53 +95,423 @@ public class BacktestResult {
         this(timeSeries, new Strategy[]{strategy});
     }
 
+    /**
+     * Backtest the strategies. Several strategies are run together in a
+     * single pass over the series, each with its own trading record, so
+     * every tick and every shared indicator value is only read once. Each
+     * strategy gets the same trades as {@link TimeSeries#run(Strategy)},
+     * which runs a single strategy.
+     *
+     * @return this result.
+     */
     public BacktestResult test() {
         this.backtestRan = true;
-        this.tradingRecord = this.timeSeries.run(this.strategies[0]);
+        if (this.strategies.length == 1) {
+            this.tradingRecords = new TradingRecord[]{this.timeSeries.run
+                    (this.strategies[0])};
+        } else {
+            this.tradingRecords = run(this.timeSeries, true, this
+                    .strategies);
+        }
 
         setResults();
         return this;
     }
 
-    public BacktestResult walkoverTest() {
+    /**
+     * Set the results of trading records already run on the series, e.g.
+     * by an optimizer which ran the strategies itself.
+     *
+     * @param tradingRecords the trades of each strategy on the series.
+     * @return this result.
+     */
+    BacktestResult test(TradingRecord... tradingRecords) {
+        if (tradingRecords.length != this.strategies.length) {
+            throw new IllegalArgumentException("Expected one trading record" +
+                    " per strategy");
+        }
         this.backtestRan = true;
+        this.tradingRecords = tradingRecords;
+
+        setResults();
+        return this;
+    }
 
-        //TODO - Finish writing to code to do a walkover test.
+    /**
+     * Run several strategies over a series at once, like
+     * {@link TimeSeries#run(Strategy)} does for one.
+     * <p/>
+     * Like {@link TimeSeries#run(Strategy)}, a trade still opened at the
+     * end of a subseries can be closed by the first exit on the following
+     * ticks of its parent series. A walkover test, which must not look
+     * past the end of a window, runs without it.
+     *
+     * @param series     the series to run on.
+     * @param pastEnd    true to close the trades still opened after the end
+     *                   of the series.
+     * @param strategies the strategies to run.
+     * @return the trading record of each strategy.
+     */
+    static TradingRecord[] run(TimeSeries series, boolean pastEnd,
+                               Strategy... strategies) {
+        TradingRecord[] tradingRecords = new TradingRecord[strategies.length];
+        for (int s = 0; s < strategies.length; s++) {
+            tradingRecords[s] = new TradingRecord();
+        }
+        for (int i = series.getBegin(); i <= series.getEnd(); i++) {
+            Decimal closePrice = series.getTick(i).getClosePrice();
+            for (int s = 0; s < strategies.length; s++) {
+                if (strategies[s].shouldOperate(i, tradingRecords[s])) {
+                    tradingRecords[s].operate(i, closePrice, Decimal.NaN);
+                }
+            }
+        }
+
+        int opened = 0;
+        for (TradingRecord tradingRecord : tradingRecords) {
+            if (!tradingRecord.isClosed()) {
+                opened++;
+            }
+        }
+        int last = pastEnd && opened > 0 ? lastIndex(series) : series
+                .getEnd();
+        for (int i = series.getEnd() + 1; i <= last && opened > 0; i++) {
+            Decimal closePrice = series.getTick(i).getClosePrice();
+            for (int s = 0; s < strategies.length; s++) {
+                if (!tradingRecords[s].isClosed() && strategies[s]
+                        .shouldOperate(i, tradingRecords[s])) {
+                    tradingRecords[s].operate(i, closePrice, Decimal.NaN);
+                    opened--;
+                }
+            }
+        }
+        return tradingRecords;
+    }
+
+    /**
+     * @param series the series, possibly a subseries.
+     * @return the index of the last tick {@link TimeSeries#run(Strategy)}
+     * can close a trade on: the last tick of the parent series of a
+     * subseries.
+     */
+    private static int lastIndex(TimeSeries series) {
+        // ta4j doesn't expose the ticks of a parent series, but its run()
+        // asks the exit rule of a trade still opened about each of them
+        int[] last = {series.getEnd()};
+        Rule lastScanned = new AbstractRule() {
+            @Override
+            public boolean isSatisfied(int index, TradingRecord
+                    tradingRecord) {
+                last[0] = index;
+                return false;
+            }
+        };
+        series.run(new Strategy(new FixedRule(series.getEnd()),
+                lastScanned));
+        return last[0];
+    }
+
+    /**
+     * Price the trades at the prices of their orders instead of the close
+     * prices of their ticks, for orders filled within a tick.
+     *
+     * @return this result.
+     */
+    BacktestResult atOrderPrices() {
+        this.atOrderPrices = true;
+        return this;
+    }
+
+    /**
+     * Run a walkover test, choosing the strategy with the best total profit
+     * on each in-sample window.
+     *
+     * @see #walkoverTest(int, int, int, AnalysisCriterion)
+     */
+    public BacktestResult walkoverTest(int inSampleTicks, int
+            outOfSampleTicks, int stepTicks) {
+        return walkoverTest(inSampleTicks, outOfSampleTicks, stepTicks, new
+                TotalProfitCriterion());
+    }
+
+    /**
+     * Run a walkover (walk-forward) test. The series is cut in windows of
+     * in-sample ticks followed by out-of-sample ticks, each window starting
+     * {@code stepTicks} after the previous one. On each window, the
+     * strategies are backtested together on the in-sample ticks, and the
+     * best one is backtested on the out-of-sample ticks. A window never
+     * reads the ticks after its end: a trade still opened at the end of a
+     * window is dropped.
+     * <p/>
+     * Every window runs the strategies of this backtest, so the windows are
+     * backtested one after the other: ta4j's cached indicators can't be
+     * shared across threads. Use
+     * {@link #walkoverTest(int, int, int, AnalysisCriterion, Function)} to
+     * backtest them in parallel.
+     * <p/>
+     * The results of each window are given by {@link #getWindows()}. The
+     * results of this backtest are then those of the trades of all the
+     * out-of-sample windows, a trade overlapping the previous one being
+     * skipped.
+     *
+     * @param inSampleTicks    the number of ticks to choose a strategy on.
+     * @param outOfSampleTicks the number of ticks to test it on.
+     * @param stepTicks        the number of ticks between the starts of two
+     *                         windows.
+     * @param criterion        the criterion to choose the strategy with.
+     * @return this result.
+     */
+    public BacktestResult walkoverTest(int inSampleTicks, int
+            outOfSampleTicks, int stepTicks, AnalysisCriterion criterion) {
+        return walkoverTest(inSampleTicks, outOfSampleTicks, stepTicks,
+                criterion, series -> this.strategies, false);
+    }
+
+    /**
+     * Run a walkover test on strategies built for each window, choosing the
+     * strategy with the best total profit on each in-sample window.
+     *
+     * @see #walkoverTest(int, int, int, AnalysisCriterion, Function)
+     */
+    public BacktestResult walkoverTest(int inSampleTicks, int
+            outOfSampleTicks, int stepTicks, Function<TimeSeries, Strategy[]>
+                                               factory) {
+        return walkoverTest(inSampleTicks, outOfSampleTicks, stepTicks, new
+                TotalProfitCriterion(), factory);
+    }
+
+    /**
+     * Run a walkover test like
+     * {@link #walkoverTest(int, int, int, AnalysisCriterion)}, on
+     * strategies built for each window instead of the strategies of this
+     * backtest. No strategy or indicator is then shared by two windows, so
+     * the windows are backtested in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool ForkJoinPool}.
+     *
+     * @param inSampleTicks    the number of ticks to choose a strategy on.
+     * @param outOfSampleTicks the number of ticks to test it on.
+     * @param stepTicks        the number of ticks between the starts of two
+     *                         windows.
+     * @param criterion        the criterion to choose the strategy with.
+     * @param factory          builds new strategies (and their indicators)
+     *                         on the series of a window, in the same order
+     *                         for every window. It is called concurrently.
+     * @return this result.
+     */
+    public BacktestResult walkoverTest(int inSampleTicks, int
+            outOfSampleTicks, int stepTicks, AnalysisCriterion criterion,
+                                       Function<TimeSeries, Strategy[]>
+                                               factory) {
+        return walkoverTest(inSampleTicks, outOfSampleTicks, stepTicks,
+                criterion, factory, true);
+    }
+
+    private BacktestResult walkoverTest(int inSampleTicks, int
+            outOfSampleTicks, int stepTicks, AnalysisCriterion criterion,
+                                        Function<TimeSeries, Strategy[]>
+                                                factory, boolean parallel) {
+        if (inSampleTicks < 1 || outOfSampleTicks < 1 || stepTicks < 1) {
+            throw new IllegalArgumentException("Windows must have at least " +
+                    "one tick");
+        }
+        this.backtestRan = true;
+
+        List<Integer> starts = new ArrayList<>();
+        for (int start = this.timeSeries.getBegin(); start >= 0 && start +
+                inSampleTicks + outOfSampleTicks - 1 <= this.timeSeries
+                .getEnd(); start += stepTicks) {
+            starts.add(start);
+        }
+        Function<Integer, WalkoverWindow> backtest = start -> window(start,
+                inSampleTicks, outOfSampleTicks, criterion, factory.apply
+                        (this.timeSeries.subseries(start, start +
+                                inSampleTicks + outOfSampleTicks - 1)));
+        if (parallel) {
+            this.windows = StrategyOptimizer.backtestAll(starts, backtest);
+        } else {
+            this.windows = new ArrayList<>(starts.size());
+            for (int start : starts) {
+                this.windows.add(backtest.apply(start));
+            }
+        }
+
+        // The out-of-sample trades, in order and without overlaps
+        TradingRecord walkover = new TradingRecord();
+        int lastExit = -1;
+        for (WalkoverWindow window : this.windows) {
+            for (Trade trade : window.getOutOfSampleResult().tradingRecords[0]
+                    .getTrades()) {
+                if (trade.getEntry().getIndex() > lastExit) {
+                    walkover.operate(trade.getEntry().getIndex(), trade
+                            .getEntry().getPrice(), trade.getEntry()
+                            .getAmount());
+                    walkover.operate(trade.getExit().getIndex(), trade
+                            .getExit().getPrice(), trade.getExit()
+                            .getAmount());
+                    lastExit = trade.getExit().getIndex();
+                }
+            }
+        }
+        this.tradingRecords = new TradingRecord[]{walkover};
 
         setResults();
         return this;
     }
 
+    /**
+     * Choose the best strategy on the in-sample ticks of a window, and
+     * backtest it on the out-of-sample ticks.
+     */
+    private WalkoverWindow window(int start, int inSampleTicks, int
+            outOfSampleTicks, AnalysisCriterion criterion, Strategy[]
+                                          strategies) {
+        if (strategies.length == 0) {
+            throw new IllegalArgumentException("A window needs at least one " +
+                    "strategy");
+        }
+        TimeSeries inSampleSeries = this.timeSeries.subseries(start, start +
+                inSampleTicks - 1);
+        BacktestResult inSample = new BacktestResult(inSampleSeries, this
+                .transactionPercentCost, this.transactionFixedCost,
+                strategies).test(run(inSampleSeries, false, strategies));
+
+        int best = 0;
+        double bestValue = criterion.calculate(inSampleSeries, inSample
+                .tradingRecords[0]);
+        for (int i = 1; i < strategies.length; i++) {
+            double value = criterion.calculate(inSampleSeries, inSample
+                    .tradingRecords[i]);
+            if (criterion.betterThan(value, bestValue)) {
+                best = i;
+                bestValue = value;
+            }
+        }
+
+        TimeSeries outOfSampleSeries = this.timeSeries.subseries(start +
+                inSampleTicks, start + inSampleTicks + outOfSampleTicks - 1);
+        BacktestResult outOfSample = new BacktestResult(outOfSampleSeries,
+                this.transactionPercentCost, this.transactionFixedCost,
+                strategies[best]).test(run(outOfSampleSeries, false,
+                strategies[best]));
+        return new WalkoverWindow(inSample, best, outOfSample);
+    }
+
+    /**
+     * @return the windows of the last walkover test, empty if none ran.
+     */
+    public List<WalkoverWindow> getWindows() {
+        return this.windows;
+    }
+
     public boolean backtestRan() {
         return this.backtestRan;
     }
 
     public int getNumberOfTrades() {
-        return this.numberOfTrades;
+        return getNumberOfTrades(0);
+    }
+
+    public int getNumberOfTrades(int i) {
+        return this.metrics[i].numberOfTrades;
     }
 
     public double getProfit() {
-        return this.profit;
+        return getProfit(0);
+    }
+
+    public double getProfit(int i) {
+        return this.metrics[i].profit;
     }
 
     public double getBuyAndHoldProfit() {
-        return this.buyAndHoldProfit;
+        return getBuyAndHoldProfit(0);
+    }
+
+    public double getBuyAndHoldProfit(int i) {
+        return this.metrics[i].buyAndHoldProfit;
     }
 
     public double getProfitableTradesRatio() {
-        return this.profitableTradesRatio;
+        return getProfitableTradesRatio(0);
+    }
+
+    public double getProfitableTradesRatio(int i) {
+        return this.metrics[i].profitableTradesRatio;
     }
 
     public double getMaxDrawdown() {
-        return this.maxDrawdown;
+        return getMaxDrawdown(0);
+    }
+
+    public double getMaxDrawdown(int i) {
+        return this.metrics[i].maxDrawdown;
     }
 
     public double getRewardRiskRatio() {
-        return this.rewardRiskRatio;
+        return getRewardRiskRatio(0);
+    }
+
+    public double getRewardRiskRatio(int i) {
+        return this.metrics[i].rewardRiskRatio;
     }
 
     public double getLinearTransactionCost() {
-        return this.linearTransactionCost;
+        return getLinearTransactionCost(0);
+    }
+
+    public double getLinearTransactionCost(int i) {
+        return this.metrics[i].linearTransactionCost;
+    }
+
+    /**
+     * @return the Sharpe ratio of the returns from one tick to the next.
+     */
+    public double getSharpeRatio() {
+        return getSharpeRatio(0);
+    }
+
+    public double getSharpeRatio(int i) {
+        return this.metrics[i].sharpeRatio;
+    }
+
+    /**
+     * @return the Sortino ratio of the returns from one tick to the next.
+     */
+    public double getSortinoRatio() {
+        return getSortinoRatio(0);
+    }
+
+    public double getSortinoRatio(int i) {
+        return this.metrics[i].sortinoRatio;
+    }
+
+    /**
+     * @return the ratio of the ticks spent in a trade.
+     */
+    public double getExposure() {
+        return getExposure(0);
+    }
+
+    public double getExposure(int i) {
+        return this.metrics[i].exposure;
+    }
+
+    /**
+     * @param i the index of the strategy.
+     * @return the trades of the strategy, or of the out-of-sample windows
+     * after a walkover test.
+     */
+    public TradingRecord getTradingRecord(int i) {
+        return this.tradingRecords[i];
+    }
+
+    /**
+     * @param i the index of the strategy.
+     * @return the profit ratio of each closed trade of the strategy, its
+     * costs included, priced like the other metrics.
+     */
+    double[] getTradeProfits(int i) {
+        return this.metrics[i].tradeProfits;
     }
 
     public Strategy getStrategy() {
@@ -139,27 +522,22 @@ public class BacktestResult {
         return this.strategies[i];
     }
 
+    public int getNumberOfStrategies() {
+        return this.strategies.length;
+    }
+
     public TimeSeries getTimeSeries() {
         return this.timeSeries;
     }
 
     private void setResults() {
-        this.numberOfTrades = (int) (new NumberOfTradesCriterion().calculate
-                (this.timeSeries, this.tradingRecord) + 0.5D);
-        this.profit = new TotalProfitCriterion().calculate(this.timeSeries,
-                this.tradingRecord);
-        this.buyAndHoldProfit = new BuyAndHoldCriterion().calculate(this
-                .timeSeries, this.tradingRecord);
-        this.profitableTradesRatio = new AverageProfitableTradesCriterion()
-                .calculate(this.timeSeries, this.tradingRecord);
-        this.maxDrawdown = new MaximumDrawdownCriterion().calculate(this
-                .timeSeries, this.tradingRecord);
-        this.rewardRiskRatio = new RewardRiskRatioCriterion().calculate(this
-                .timeSeries, this.tradingRecord);
-        this.linearTransactionCost = new LinearTransactionCostCriterion(
-                INITIAL_AMOUNT, this.transactionPercentCost, this
-                .transactionFixedCost)
-                .calculate(this.timeSeries, this.tradingRecord);
+        this.metrics = new BacktestMetrics[this.tradingRecords.length];
+        for (int i = 0; i < this.metrics.length; i++) {
+            this.metrics[i] = BacktestMetrics.of(this.timeSeries, this
+                    .tradingRecords[i], INITIAL_AMOUNT, this
+                    .transactionPercentCost, this.transactionFixedCost, this
+                    .atOrderPrices);
+        }
     }
 
 }
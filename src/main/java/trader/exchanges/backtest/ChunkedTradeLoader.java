@@ -0,0 +1,323 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import eu.verdelhan.ta4j.Tick;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Builds ticks from a CSV file of trades on all cores. The file is split
+ * in chunks at line boundaries, every chunk is parsed into its own ticks
+ * on a {@link java.util.concurrent.ForkJoinPool ForkJoinPool} and the
+ * ticks straddling two chunks are merged back together.
+ *
+ * @author Joshua Kahn
+ */
+public class ChunkedTradeLoader {
+
+    /**
+     * The smallest chunk worth handing to another thread.
+     */
+    private static final long MIN_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    /**
+     * The number of chunks per thread, so that a thread finishing early can
+     * steal work from the others.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Build the ticks of a CSV file of trades, skipping its header line.
+     *
+     * @param file     the CSV file.
+     * @param duration the length (in seconds) of each tick.
+     * @return the non-empty ticks, in chronological order.
+     * @throws IOException if the file can't be read.
+     */
+    public static List<Tick> loadTicks(Path file, int duration) throws
+            IOException {
+        return loadTicks(file, duration, 1);
+    }
+
+    /**
+     * Build the ticks of a CSV file of trades, skipping its header line.
+     *
+     * @param file      the CSV file.
+     * @param duration  the length (in seconds) of each tick.
+     * @param alignment the ticks begin at the timestamp of the first trade
+     *                  rounded down to a multiple of {@code alignment}
+     *                  seconds.
+     * @return the non-empty ticks, in chronological order.
+     * @throws IOException if the file can't be read.
+     */
+    public static List<Tick> loadTicks(Path file, int duration, int
+            alignment) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            return loadTicks(channel, channel.size(), duration, alignment,
+                    getChunkCount(channel.size()));
+        }
+    }
+
+    /**
+     * Build the ticks of a CSV file of trades, skipping its header line.
+     *
+     * @param channel    the CSV file.
+     * @param duration   the length (in seconds) of each tick.
+     * @param chunkCount the number of chunks to split the file in.
+     * @return the non-empty ticks, in chronological order.
+     * @throws IOException if the file can't be read.
+     */
+    public static List<Tick> loadTicks(FileChannel channel, int duration, int
+            chunkCount) throws IOException {
+        return loadTicks(channel, duration, 1, chunkCount);
+    }
+
+    /**
+     * Build the ticks of a CSV file of trades, skipping its header line.
+     *
+     * @param channel    the CSV file.
+     * @param duration   the length (in seconds) of each tick.
+     * @param alignment  the ticks begin at the timestamp of the first trade
+     *                   rounded down to a multiple of {@code alignment}
+     *                   seconds.
+     * @param chunkCount the number of chunks to split the file in.
+     * @return the non-empty ticks, in chronological order.
+     * @throws IOException if the file can't be read.
+     */
+    public static List<Tick> loadTicks(FileChannel channel, int duration, int
+            alignment, int chunkCount) throws IOException {
+        return loadTicks(channel, channel.size(), duration, alignment,
+                chunkCount);
+    }
+
+    /**
+     * Get the number of chunks to split a file in.
+     *
+     * @param size the size of the file.
+     * @return the number of chunks, at least one.
+     */
+    static int getChunkCount(long size) {
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        return (int) Math.max(1, Math.min(size / MIN_CHUNK_SIZE, parallelism
+                * CHUNKS_PER_THREAD));
+    }
+
+    /**
+     * Build the ticks of the lines of a CSV file of trades starting before
+     * {@code size}, skipping its header line.
+     *
+     * @param channel    the CSV file.
+     * @param size       the offset after which no line is read.
+     * @param duration   the length (in seconds) of each tick.
+     * @param alignment  the ticks begin at the timestamp of the first trade
+     *                   rounded down to a multiple of {@code alignment}
+     *                   seconds.
+     * @param chunkCount the number of chunks to split the file in.
+     * @return the non-empty ticks, in chronological order.
+     * @throws IOException if the file can't be read.
+     */
+    static List<Tick> loadTicks(FileChannel channel, long size, int duration,
+                                int alignment, int chunkCount) throws
+            IOException {
+        // Skipping the header line
+        long begin = TradeFileReader.nextLineOffset(channel, 1);
+
+        // The ticks are aligned on the first trade
+        TradeFileReader firstTrade = new TradeFileReader(channel, begin,
+                size);
+        if (!firstTrade.next()) {
+            return new ArrayList<>();
+        }
+        long beginTimestamp = firstTrade.getTimestamp() - (firstTrade
+                .getTimestamp() % alignment);
+
+        // Splitting the file at line boundaries
+        long[] offsets = new long[chunkCount + 1];
+        offsets[0] = begin;
+        for (int i = 1; i < chunkCount; i++) {
+            long offset = begin + (((size - begin) / chunkCount) * i);
+            offsets[i] = Math.max(offsets[i - 1], TradeFileReader
+                    .nextLineOffset(channel, offset));
+        }
+        offsets[chunkCount] = size;
+
+        LongAdder skippedTrades = new LongAdder();
+        List<Tick> ticks;
+        try {
+            ticks = ForkJoinPool.commonPool().invoke(new ChunkTask(channel,
+                    offsets, 0, chunkCount, beginTimestamp, duration,
+                    skippedTrades));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (skippedTrades.sum() > 0) {
+            Logger.getLogger(ChunkedTradeLoader.class.getName()).log(Level
+                    .WARNING, "Skipped " + skippedTrades.sum() + " trades " +
+                    "older than the first trade");
+        }
+        return ticks;
+    }
+
+    /**
+     * Merge the ticks of two consecutive chunks. A tick found in both lists
+     * is merged into one, the trades of {@code first} coming first.
+     *
+     * @param first  the ticks of the first chunk.
+     * @param second the ticks of the chunk following {@code first}.
+     * @return the ticks of both chunks, in chronological order.
+     */
+    static List<Tick> mergeTicks(List<Tick> first, List<Tick> second) {
+        if (first.isEmpty()) {
+            return second;
+        }
+        if (second.isEmpty()) {
+            return first;
+        }
+
+        Tick lastTick = first.get(first.size() - 1);
+        Tick firstTick = second.get(0);
+        if (lastTick.getEndTime().isBefore(firstTick.getEndTime())) {
+            // The chunks don't overlap
+            first.addAll(second);
+            return first;
+        }
+        if (lastTick.getEndTime().isEqual(firstTick.getEndTime()) && (second
+                .size() == 1 || lastTick.getEndTime().isBefore(second.get(1)
+                .getEndTime()))) {
+            // Only one tick straddles the chunks
+            first.set(first.size() - 1, AggregatedTick.merge(lastTick,
+                    firstTick));
+            first.addAll(second.subList(1, second.size()));
+            return first;
+        }
+
+        // Trades out of order across the chunks, merging both lists
+        List<Tick> merged = new ArrayList<>(first.size() + second.size());
+        int i = 0;
+        int j = 0;
+        while (i < first.size() || j < second.size()) {
+            if (j == second.size()) {
+                merged.add(first.get(i++));
+            } else if (i == first.size()) {
+                merged.add(second.get(j++));
+            } else {
+                Tick tick1 = first.get(i);
+                Tick tick2 = second.get(j);
+                if (tick1.getEndTime().isBefore(tick2.getEndTime())) {
+                    merged.add(tick1);
+                    i++;
+                } else if (tick2.getEndTime().isBefore(tick1.getEndTime())) {
+                    merged.add(tick2);
+                    j++;
+                } else {
+                    merged.add(AggregatedTick.merge(tick1, tick2));
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Builds the ticks of a range of chunks, splitting the range in two
+     * until a single chunk is left.
+     */
+    private static class ChunkTask extends RecursiveTask<List<Tick>> {
+
+        private final FileChannel channel;
+        private final long[] offsets;
+        private final int firstChunk;
+        private final int lastChunk;
+        private final long beginTimestamp;
+        private final int duration;
+        private final LongAdder skippedTrades;
+
+        ChunkTask(FileChannel channel, long[] offsets, int firstChunk, int
+                lastChunk, long beginTimestamp, int duration, LongAdder
+                          skippedTrades) {
+            this.channel = channel;
+            this.offsets = offsets;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+            this.beginTimestamp = beginTimestamp;
+            this.duration = duration;
+            this.skippedTrades = skippedTrades;
+        }
+
+        @Override
+        protected List<Tick> compute() {
+            if (this.lastChunk - this.firstChunk > 1) {
+                int middleChunk = (this.firstChunk + this.lastChunk) >>> 1;
+                ChunkTask secondHalf = new ChunkTask(this.channel, this
+                        .offsets, middleChunk, this.lastChunk, this
+                        .beginTimestamp, this.duration, this.skippedTrades);
+                secondHalf.fork();
+                List<Tick> firstTicks = new ChunkTask(this.channel, this
+                        .offsets, this.firstChunk, middleChunk, this
+                        .beginTimestamp, this.duration, this.skippedTrades)
+                        .compute();
+                return mergeTicks(firstTicks, secondHalf.join());
+            }
+
+            long begin = this.offsets[this.firstChunk];
+            long end = this.offsets[this.lastChunk];
+            if (begin >= end) {
+                return new ArrayList<>();
+            }
+
+            TickAggregator aggregator = new TickAggregator(this
+                    .beginTimestamp, this.duration);
+            // The channel is shared, the reader only uses positional reads
+            TradeFileReader reader = new TradeFileReader(this.channel, begin,
+                    end);
+            try {
+                while (reader.next()) {
+                    aggregator.addTrade(reader.getTimestamp(), reader
+                            .getPrice(), reader.getAmount());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.skippedTrades.add(aggregator.getSkippedTrades());
+            return aggregator.getTicks();
+        }
+
+    }
+
+}
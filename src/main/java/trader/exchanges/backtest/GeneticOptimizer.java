@@ -0,0 +1,390 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import eu.verdelhan.ta4j.Decimal;
+import eu.verdelhan.ta4j.Strategy;
+import eu.verdelhan.ta4j.TimeSeries;
+import eu.verdelhan.ta4j.TradingRecord;
+import org.jooq.lambda.tuple.Tuple2;
+import trader.indicators.IndicatorRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Searches the parameters of a strategy with a genetic algorithm, for when a
+ * full grid of {@link StrategyOptimizer} would be too large.
+ * <p/>
+ * A candidate is a set of integer genes, each between its bounds. The
+ * candidates of a generation are backtested in parallel, and a candidate is
+ * abandoned as soon as the drawdown of its equity passes the cutoff. The
+ * next generation keeps the best candidates and breeds the others from
+ * tournaments, with a uniform crossover and gaussian mutations.
+ * <p/>
+ * Every random choice comes from the seed, on the calling thread, so the
+ * same seed gives the same search. All the generations build their
+ * strategies on the same {@link IndicatorRegistry}, and a candidate seen
+ * before is not backtested again.
+ *
+ * @author Joshua Kahn
+ */
+public class GeneticOptimizer {
+
+    private static final int POPULATION_SIZE = 32;
+
+    private static final int GENERATIONS = 20;
+
+    private static final double MUTATION_RATE = 0.1;
+
+    /**
+     * The number of the best candidates kept as is in the next generation.
+     */
+    private static final int ELITE_SIZE = 2;
+
+    /**
+     * The number of candidates drawn to pick each parent.
+     */
+    private static final int TOURNAMENT_SIZE = 3;
+
+    private final TimeSeries series;
+
+    private final double transactionPercentCost;
+
+    private final double transactionFixedCost;
+
+    private final IndicatorRegistry registry;
+
+    private final int[] lowerBounds;
+
+    private final int[] upperBounds;
+
+    private final BiFunction<IndicatorRegistry, int[], Strategy> factory;
+
+    private int populationSize = POPULATION_SIZE;
+
+    private int generations = GENERATIONS;
+
+    private double mutationRate = MUTATION_RATE;
+
+    private double maxDrawdown = Double.POSITIVE_INFINITY;
+
+    private long seed = 0L;
+
+    /**
+     * @param series                 the series to backtest on.
+     * @param transactionPercentCost the cost of a trade, as a ratio of its
+     *                               amount.
+     * @param transactionFixedCost   the fixed cost of a trade.
+     * @param lowerBounds            the lowest value of each gene.
+     * @param upperBounds            the highest value of each gene.
+     * @param factory                builds the strategy of a candidate, on
+     *                               double indicators of the registry.
+     */
+    public GeneticOptimizer(TimeSeries series, double
+            transactionPercentCost, double transactionFixedCost, int[]
+                                    lowerBounds, int[] upperBounds,
+                            BiFunction<IndicatorRegistry, int[], Strategy>
+                                    factory) {
+        if (lowerBounds.length != upperBounds.length) {
+            throw new IllegalArgumentException("Bounds must have the same " +
+                    "length");
+        }
+        for (int i = 0; i < lowerBounds.length; i++) {
+            if (lowerBounds[i] > upperBounds[i]) {
+                throw new IllegalArgumentException("Lower bound " + i + " is" +
+                        " greater than the upper bound");
+            }
+        }
+        this.series = series;
+        this.transactionPercentCost = transactionPercentCost;
+        this.transactionFixedCost = transactionFixedCost;
+        this.registry = new IndicatorRegistry(series);
+        this.lowerBounds = lowerBounds.clone();
+        this.upperBounds = upperBounds.clone();
+        this.factory = factory;
+    }
+
+    /**
+     * @param size the number of candidates of a generation.
+     * @return this optimizer.
+     */
+    public GeneticOptimizer populationSize(int size) {
+        if (size <= ELITE_SIZE) {
+            throw new IllegalArgumentException("Population size must be " +
+                    "greater than " + ELITE_SIZE);
+        }
+        this.populationSize = size;
+        return this;
+    }
+
+    /**
+     * @param generations the number of generations to backtest.
+     * @return this optimizer.
+     */
+    public GeneticOptimizer generations(int generations) {
+        this.generations = generations;
+        return this;
+    }
+
+    /**
+     * @param rate the probability for each gene of a child to mutate.
+     * @return this optimizer.
+     */
+    public GeneticOptimizer mutationRate(double rate) {
+        this.mutationRate = rate;
+        return this;
+    }
+
+    /**
+     * @param cutoff the drawdown (as a ratio of the peak equity) past which
+     *               a candidate is abandoned.
+     * @return this optimizer.
+     */
+    public GeneticOptimizer maxDrawdown(double cutoff) {
+        this.maxDrawdown = cutoff;
+        return this;
+    }
+
+    /**
+     * @param seed the seed of the random choices of the search.
+     * @return this optimizer.
+     */
+    public GeneticOptimizer seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Run the search.
+     *
+     * @param fitness the criterion to maximize (e.g.
+     *                {@code BacktestResult::getProfit}).
+     * @return every candidate backtested to the end with its result, the
+     * best first.
+     */
+    public List<Tuple2<int[], BacktestResult>> optimize(ToDoubleFunction
+                                                                <BacktestResult>
+                                                                fitness) {
+        Random random = new Random(this.seed);
+        // The results by genes, null for the abandoned candidates
+        Map<List<Integer>, BacktestResult> results = new LinkedHashMap<>();
+
+        List<int[]> population = new ArrayList<>(this.populationSize);
+        for (int i = 0; i < this.populationSize; i++) {
+            int[] genes = new int[this.lowerBounds.length];
+            for (int j = 0; j < genes.length; j++) {
+                genes[j] = this.lowerBounds[j] + random.nextInt(this
+                        .upperBounds[j] - this.lowerBounds[j] + 1);
+            }
+            population.add(genes);
+        }
+
+        for (int generation = 0; generation < this.generations;
+             generation++) {
+            evaluate(population, results);
+            if (generation == this.generations - 1) {
+                break;
+            }
+
+            int[][] ranked = rank(population, results, fitness);
+            List<int[]> next = new ArrayList<>(this.populationSize);
+            next.addAll(Arrays.asList(ranked).subList(0, Math.min(ELITE_SIZE,
+                    ranked.length)));
+            while (next.size() < this.populationSize) {
+                next.add(mutate(crossover(select(ranked, random), select
+                        (ranked, random), random), random));
+            }
+            population = next;
+        }
+
+        List<Tuple2<int[], BacktestResult>> ranked = new ArrayList<>();
+        results.forEach((genes, result) -> {
+            if (result != null) {
+                ranked.add(new Tuple2<>(toArray(genes), result));
+            }
+        });
+        // Stable, so ties keep the order in which they were found
+        ranked.sort((a, b) -> Double.compare(score(b.v2, fitness), score(a
+                .v2, fitness)));
+        return ranked;
+    }
+
+    /**
+     * Backtest the candidates not backtested yet, in parallel.
+     */
+    private void evaluate(List<int[]> population, Map<List<Integer>,
+            BacktestResult> results) {
+        List<List<Integer>> pending = new ArrayList<>();
+        for (int[] genes : population) {
+            List<Integer> key = toList(genes);
+            if (!results.containsKey(key) && !pending.contains(key)) {
+                pending.add(key);
+            }
+        }
+        List<BacktestResult> backtests = StrategyOptimizer.backtestAll
+                (pending, genes -> backtest(toArray(genes)));
+        for (int i = 0; i < backtests.size(); i++) {
+            results.put(pending.get(i), backtests.get(i));
+        }
+    }
+
+    /**
+     * Run the strategy of a candidate over the series, like
+     * {@link TimeSeries#run(Strategy)}, following the equity of its trades
+     * to abandon it early.
+     *
+     * @param genes the genes of the candidate.
+     * @return the result of the backtest, or null if the candidate was
+     * abandoned.
+     */
+    BacktestResult backtest(int[] genes) {
+        Strategy strategy = this.factory.apply(this.registry, genes);
+        TradingRecord tradingRecord = new TradingRecord();
+
+        double equity = 1D;
+        double peak = 1D;
+        double entryEquity = 1D;
+        double entryPrice = 1D;
+        for (int i = this.series.getBegin(); i <= this.series.getEnd(); i++) {
+            Decimal closePrice = this.series.getTick(i).getClosePrice();
+            double close = closePrice.toDouble();
+            if (tradingRecord.getCurrentTrade().isOpened()) {
+                equity = entryEquity * close / entryPrice;
+            }
+            if (strategy.shouldOperate(i, tradingRecord)) {
+                tradingRecord.operate(i, closePrice, Decimal.NaN);
+                if (tradingRecord.getCurrentTrade().isOpened()) {
+                    entryEquity = equity;
+                    entryPrice = close;
+                }
+            }
+            peak = Math.max(peak, equity);
+            if ((peak - equity) / peak > this.maxDrawdown) {
+                return null;
+            }
+        }
+        return new BacktestResult(this.series, this.transactionPercentCost,
+                this.transactionFixedCost, strategy).test(tradingRecord);
+    }
+
+    /**
+     * @return the distinct candidates of the population, the best first and
+     * the abandoned ones last.
+     */
+    private static int[][] rank(List<int[]> population, Map<List<Integer>,
+            BacktestResult> results, ToDoubleFunction<BacktestResult>
+                                        fitness) {
+        Map<List<Integer>, Double> scores = new LinkedHashMap<>();
+        for (int[] genes : population) {
+            List<Integer> key = toList(genes);
+            scores.putIfAbsent(key, score(results.get(key), fitness));
+        }
+        List<Map.Entry<List<Integer>, Double>> entries = new ArrayList<>
+                (scores.entrySet());
+        entries.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+
+        int[][] ranked = new int[entries.size()][];
+        for (int i = 0; i < ranked.length; i++) {
+            ranked[i] = toArray(entries.get(i).getKey());
+        }
+        return ranked;
+    }
+
+    /**
+     * @return the best of {@link #TOURNAMENT_SIZE} candidates drawn from the
+     * ranked ones.
+     */
+    private static int[] select(int[][] ranked, Random random) {
+        int best = ranked.length;
+        for (int i = 0; i < TOURNAMENT_SIZE; i++) {
+            best = Math.min(best, random.nextInt(ranked.length));
+        }
+        return ranked[best];
+    }
+
+    /**
+     * @return a child taking each gene from either parent.
+     */
+    private static int[] crossover(int[] first, int[] second, Random random) {
+        int[] child = new int[first.length];
+        for (int i = 0; i < child.length; i++) {
+            child[i] = random.nextBoolean() ? first[i] : second[i];
+        }
+        return child;
+    }
+
+    /**
+     * Move some genes by a gaussian step of a tenth of their range, within
+     * their bounds.
+     */
+    private int[] mutate(int[] genes, Random random) {
+        for (int i = 0; i < genes.length; i++) {
+            if (random.nextDouble() < this.mutationRate) {
+                int range = this.upperBounds[i] - this.lowerBounds[i] + 1;
+                long step = Math.round(random.nextGaussian() * Math.max(1D,
+                        range / 10D));
+                genes[i] = (int) Math.max(this.lowerBounds[i], Math.min(this
+                        .upperBounds[i], genes[i] + step));
+            }
+        }
+        return genes;
+    }
+
+    /**
+     * @return the fitness of a result, negative infinity for an abandoned
+     * candidate or a NaN fitness.
+     */
+    private static double score(BacktestResult result,
+                                ToDoubleFunction<BacktestResult> fitness) {
+        if (result == null) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double score = fitness.applyAsDouble(result);
+        return Double.isNaN(score) ? Double.NEGATIVE_INFINITY : score;
+    }
+
+    private static List<Integer> toList(int[] genes) {
+        List<Integer> list = new ArrayList<>(genes.length);
+        for (int gene : genes) {
+            list.add(gene);
+        }
+        return list;
+    }
+
+    private static int[] toArray(List<Integer> genes) {
+        int[] array = new int[genes.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = genes.get(i);
+        }
+        return array;
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import eu.verdelhan.ta4j.Tick;
+import eu.verdelhan.ta4j.TimeSeries;
+import org.joda.time.DateTime;
+import org.joda.time.Period;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a {@link eu.verdelhan.ta4j.TimeSeries TimeSeries} up to date with a
+ * CSV file of trades that is still being appended to. Every refresh only
+ * parses the lines appended since the previous one: the trades of the last
+ * tick are added to it and the following trades are added to the series as
+ * new ticks.
+ * <p>
+ * Only complete lines are read, a line still being written is read on the
+ * next refresh. As the last tick of the series may still receive trades,
+ * indicator values already cached for it can be out of date.
+ *
+ * @author Joshua Kahn
+ */
+public class IncrementalLoader implements Closeable {
+
+    private final FileChannel channel;
+
+    /**
+     * The length of time (in seconds) for each tick.
+     */
+    private final int duration;
+
+    private final Period tickTimePeriod;
+
+    private final TimeSeries timeSeries;
+
+    /**
+     * The offset of the first line not read yet, or 0 until the header line
+     * is complete.
+     */
+    private long offset;
+
+    /**
+     * The time (UNIX time seconds) the first tick begins at, or -1 before
+     * the first trade.
+     */
+    private long beginTimestamp = -1;
+
+    /**
+     * The last tick of the series, it still receives trades.
+     */
+    private Tick lastTick;
+
+    /**
+     * The position (counted in ticks from {@code beginTimestamp}) of {@code
+     * lastTick}.
+     */
+    private long lastTickIndex = -1;
+
+    /**
+     * Load the ticks of every complete line of a CSV file of trades.
+     *
+     * @param file     the CSV file.
+     * @param name     the name of the series.
+     * @param duration the length (in seconds) of each tick.
+     * @throws IOException if the file can't be read.
+     */
+    public IncrementalLoader(Path file, String name, int duration) throws
+            IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.duration = duration;
+        this.tickTimePeriod = Period.seconds(duration);
+
+        // Loading the existing trades on all cores
+        long end = TradeFileReader.lineStartOffset(this.channel, this.channel
+                .size());
+        List<Tick> ticks = ChunkedTradeLoader.loadTicks(this.channel, end,
+                duration, 1, ChunkedTradeLoader.getChunkCount(end));
+        this.timeSeries = new TimeSeries(name, ticks);
+        // Every complete line was read, the header included if there is one
+        this.offset = end;
+
+        if (!ticks.isEmpty()) {
+            this.beginTimestamp = ticks.get(0).getBeginTime().getMillis() /
+                    1000L;
+            this.lastTick = ticks.get(ticks.size() - 1);
+            this.lastTickIndex = ((this.lastTick.getBeginTime().getMillis() /
+                    1000L) - this.beginTimestamp) / duration;
+        }
+    }
+
+    /**
+     * @return the series, kept up to date by {@link #refresh()}.
+     */
+    public TimeSeries getTimeSeries() {
+        return this.timeSeries;
+    }
+
+    /**
+     * Read the lines appended to the file since the last refresh.
+     *
+     * @return the number of ticks added to the series.
+     * @throws IOException if the file can't be read or was truncated.
+     */
+    public int refresh() throws IOException {
+        long size = this.channel.size();
+        if (size < this.offset) {
+            throw new IOException("The file was truncated");
+        }
+        if (size == this.offset) {
+            return 0;
+        }
+
+        long end = TradeFileReader.lineStartOffset(this.channel, size);
+        if (end <= this.offset) {
+            // Only part of a line was appended
+            return 0;
+        }
+
+        // Skipping the header once it is complete
+        long start = this.offset == 0 ? TradeFileReader.nextLineOffset(this
+                .channel, 1) : this.offset;
+        int addedTicks = 0;
+        long skippedTrades = 0;
+        TradeFileReader reader = new TradeFileReader(this.channel, start,
+                end);
+        while (reader.next()) {
+            long tradeTimestamp = reader.getTimestamp();
+            if (this.beginTimestamp < 0) {
+                this.beginTimestamp = tradeTimestamp;
+            }
+            long tickIndex = (tradeTimestamp - this.beginTimestamp) / this
+                    .duration;
+            if (tradeTimestamp < this.beginTimestamp || tickIndex < this
+                    .lastTickIndex) {
+                skippedTrades++;
+                continue;
+            }
+            if (tickIndex > this.lastTickIndex) {
+                this.lastTick = new Tick(this.tickTimePeriod, new DateTime((this
+                        .beginTimestamp + ((tickIndex + 1) * this.duration)) *
+                        1000L));
+                this.lastTickIndex = tickIndex;
+                this.timeSeries.addTick(this.lastTick);
+                addedTicks++;
+            }
+            this.lastTick.addTrade(reader.getAmount(), reader.getPrice());
+        }
+        this.offset = end;
+
+        if (skippedTrades > 0) {
+            Logger.getLogger(IncrementalLoader.class.getName()).log(Level
+                    .WARNING, "Skipped " + skippedTrades + " trades older " +
+                    "than the last tick");
+        }
+        return addedTicks;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+}
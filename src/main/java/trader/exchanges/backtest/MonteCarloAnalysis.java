@@ -0,0 +1,252 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Monte Carlo analysis of the trades of a backtest: the trades are drawn
+ * again in another order many times, to get the distributions of the total
+ * profit and of the maximum drawdown instead of a single figure.
+ * <p/>
+ * The profit of each trade is taken from the metrics of the backtest, so
+ * it is priced the same way (e.g. at the order prices of a trade replay)
+ * and its transaction costs are included, the fixed costs being those of
+ * the amount it traded in the backtest. The trades are either shuffled,
+ * which keeps the total profit and only moves the drawdown, or resampled
+ * with replacement. The drawdown is taken on the equity after each trade.
+ * <p/>
+ * The iterations are cut in blocks backtested on the common
+ * {@link ForkJoinPool ForkJoinPool}, each block drawing from its own
+ * generator. The generators are split in block order from a single one
+ * seeded with the seed, so their streams are independent and the results
+ * only depend on the seed.
+ *
+ * @author Joshua Kahn
+ */
+public class MonteCarloAnalysis {
+
+    /**
+     * How the trades are drawn.
+     */
+    public enum Mode {
+        /**
+         * Every trade once, in a random order.
+         */
+        SHUFFLE,
+        /**
+         * As many trades as backtested, drawn with replacement.
+         */
+        RESAMPLE
+    }
+
+    /**
+     * The number of iterations of a block.
+     */
+    private static final int BLOCK_SIZE = 4096;
+
+    /**
+     * The profit ratio of each trade, its costs included.
+     */
+    private final double[] tradeProfits;
+
+    private final Mode mode;
+
+    private final long seed;
+
+    private double[] profits = new double[0];
+
+    private double[] drawdowns = new double[0];
+
+    /**
+     * The generator of each block of the current run.
+     */
+    private SplittableRandom[] randoms;
+
+    /**
+     * Analyse the trades of the first strategy of a backtest.
+     *
+     * @see #MonteCarloAnalysis(BacktestResult, int, Mode, long)
+     */
+    public MonteCarloAnalysis(BacktestResult result, Mode mode, long seed) {
+        this(result, 0, mode, seed);
+    }
+
+    /**
+     * @param result   the backtest to analyse.
+     * @param strategy the index of the strategy to analyse in the backtest.
+     * @param mode     how the trades are drawn.
+     * @param seed     the seed of the random draws.
+     */
+    public MonteCarloAnalysis(BacktestResult result, int strategy, Mode mode,
+                              long seed) {
+        if (!result.backtestRan()) {
+            throw new IllegalStateException("The backtest must be run first");
+        }
+        // Priced and charged like the metrics of the backtest
+        this.tradeProfits = result.getTradeProfits(strategy).clone();
+        this.mode = mode;
+        this.seed = seed;
+    }
+
+    /**
+     * Run the iterations, replacing the results of a previous run.
+     *
+     * @param iterations the number of times the trades are drawn.
+     * @return this analysis.
+     */
+    public MonteCarloAnalysis run(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("At least one iteration is " +
+                    "needed");
+        }
+        this.profits = new double[iterations];
+        this.drawdowns = new double[iterations];
+        int blocks = (iterations + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        SplittableRandom random = new SplittableRandom(this.seed);
+        this.randoms = new SplittableRandom[blocks];
+        for (int block = 0; block < blocks; block++) {
+            this.randoms[block] = random.split();
+        }
+        ForkJoinPool.commonPool().invoke(new BlockTask(0, blocks));
+        this.randoms = null;
+        Arrays.parallelSort(this.profits);
+        Arrays.parallelSort(this.drawdowns);
+        return this;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100.
+     * @return the total profit at the percentile.
+     */
+    public double getProfitPercentile(double percentile) {
+        return percentile(this.profits, percentile);
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100.
+     * @return the maximum drawdown at the percentile.
+     */
+    public double getDrawdownPercentile(double percentile) {
+        return percentile(this.drawdowns, percentile);
+    }
+
+    public int getIterations() {
+        return this.profits.length;
+    }
+
+    public int getNumberOfTrades() {
+        return this.tradeProfits.length;
+    }
+
+    /**
+     * Run the iterations of a block, writing their results in the slots of
+     * the block.
+     */
+    private void runBlock(int block) {
+        SplittableRandom random = this.randoms[block];
+        int[] order = new int[this.tradeProfits.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        int last = Math.min(this.profits.length, (block + 1) * BLOCK_SIZE);
+        for (int iteration = block * BLOCK_SIZE; iteration < last;
+             iteration++) {
+            double equity = 1D;
+            double peak = 1D;
+            double maxDrawdown = 0D;
+            for (int i = 0; i < order.length; i++) {
+                int trade;
+                if (this.mode == Mode.SHUFFLE) {
+                    // Fisher-Yates, one step per trade
+                    int j = i + random.nextInt(order.length - i);
+                    trade = order[j];
+                    order[j] = order[i];
+                    order[i] = trade;
+                } else {
+                    trade = random.nextInt(order.length);
+                }
+                equity *= this.tradeProfits[trade];
+                if (equity > peak) {
+                    peak = equity;
+                } else if ((peak - equity) / peak > maxDrawdown) {
+                    maxDrawdown = (peak - equity) / peak;
+                }
+            }
+            this.profits[iteration] = equity;
+            this.drawdowns[iteration] = maxDrawdown;
+        }
+    }
+
+    /**
+     * @return the value at a percentile of sorted values, interpolated
+     * between the closest ranks.
+     */
+    private static double percentile(double[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            throw new IllegalStateException("The analysis must be run first");
+        }
+        if (percentile < 0D || percentile > 100D) {
+            throw new IllegalArgumentException("Percentile must be between " +
+                    "0 and 100");
+        }
+        double rank = percentile / 100D * (sorted.length - 1);
+        int lower = (int) rank;
+        if (lower == sorted.length - 1) {
+            return sorted[lower];
+        }
+        return sorted[lower] + (rank - lower) * (sorted[lower + 1] -
+                sorted[lower]);
+    }
+
+    /**
+     * Runs a range of blocks, splitting it in halves down to a single block.
+     */
+    private class BlockTask extends RecursiveAction {
+
+        private final int first;
+        private final int last;
+
+        BlockTask(int first, int last) {
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.last - this.first > 1) {
+                int middle = (this.first + this.last) >>> 1;
+                invokeAll(new BlockTask(this.first, middle), new BlockTask
+                        (middle, this.last));
+                return;
+            }
+            runBlock(this.first);
+        }
+
+    }
+
+}
@@ -0,0 +1,341 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+/**
+ * A simulated limit order book, which the market orders of a backtest walk
+ * through instead of being filled at a single price with unlimited
+ * liquidity.
+ * <p/>
+ * Each side is held in a pair of arrays of prices and amounts, best level
+ * first. Filling an order consumes the levels from the best one by moving
+ * the start of the side, so no array is shifted or allocated.
+ * <p/>
+ * The levels are copied from the recorded snapshots given to
+ * {@link #update(OrderBookSnapshot)}. When there is no snapshot, or the
+ * last one is older than the snapshot lifetime, they are generated around
+ * the price of the last trade, the amount of each level being a multiple
+ * of the average amount of the trades. The best bid and the best ask are
+ * half a tick size away from that price on either side, so neither buying
+ * nor selling is favoured. The generated levels are only
+ * rebuilt when an order is filled after new trades, so replaying a trade
+ * only costs a few operations.
+ *
+ * @author Joshua Kahn
+ */
+public class OrderBook {
+
+    /**
+     * The number of trades the average trade amount is computed over.
+     */
+    private static final int AVERAGE_TRADES = 1000;
+
+    private static final double ALPHA = 2D / (AVERAGE_TRADES + 1);
+
+    /**
+     * The default length of time (in seconds) a snapshot is used for.
+     */
+    private static final int SNAPSHOT_LIFETIME = 60;
+
+    private final int capacity;
+
+    /**
+     * The difference between the prices of two generated levels.
+     */
+    private final double tickSize;
+
+    /**
+     * The amount of a generated level, as a multiple of the average trade
+     * amount.
+     */
+    private final double depthRatio;
+
+    private final double[] bidPrices;
+    private final double[] bidAmounts;
+    private final double[] askPrices;
+    private final double[] askAmounts;
+
+    // The first level (the best one) and the number of levels of each side
+    private int bidStart;
+    private int bidEnd;
+    private int askStart;
+    private int askEnd;
+
+    private double lastPrice = Double.NaN;
+
+    private double averageAmount;
+
+    /**
+     * True if trades were replayed since the levels were generated.
+     */
+    private boolean stale;
+
+    private int snapshotLifetime = SNAPSHOT_LIFETIME;
+
+    /**
+     * True while the levels are those of a snapshot which is still used.
+     */
+    private boolean snapshotUsed;
+
+    private long snapshotTimestamp;
+
+    /**
+     * @param capacity   the maximum number of levels of each side.
+     * @param tickSize   the difference between the prices of two generated
+     *                   levels.
+     * @param depthRatio the amount of each generated level, as a multiple
+     *                   of the average trade amount.
+     */
+    public OrderBook(int capacity, double tickSize, double depthRatio) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least " +
+                    "one level");
+        }
+        this.capacity = capacity;
+        this.tickSize = tickSize;
+        this.depthRatio = depthRatio;
+        this.bidPrices = new double[capacity];
+        this.bidAmounts = new double[capacity];
+        this.askPrices = new double[capacity];
+        this.askAmounts = new double[capacity];
+    }
+
+    /**
+     * @param lifetime the length of time (in seconds) a snapshot is used
+     *                 for, unless a newer one replaces it. The levels are
+     *                 generated again once it has expired.
+     * @return this order book.
+     */
+    public OrderBook snapshotLifetime(int lifetime) {
+        if (lifetime < 0) {
+            throw new IllegalArgumentException("Lifetime must not be " +
+                    "negative");
+        }
+        this.snapshotLifetime = lifetime;
+        return this;
+    }
+
+    /**
+     * Replace the levels with those of a recorded snapshot. The levels
+     * beyond the capacity are ignored. They are kept, minus the orders
+     * filled against them, until the next snapshot or until the snapshot
+     * expires.
+     *
+     * @param snapshot the snapshot.
+     */
+    public void update(OrderBookSnapshot snapshot) {
+        this.bidStart = 0;
+        this.bidEnd = Math.min(snapshot.getBidPrices().length, this
+                .capacity);
+        System.arraycopy(snapshot.getBidPrices(), 0, this.bidPrices, 0,
+                this.bidEnd);
+        System.arraycopy(snapshot.getBidAmounts(), 0, this.bidAmounts, 0,
+                this.bidEnd);
+        this.askStart = 0;
+        this.askEnd = Math.min(snapshot.getAskPrices().length, this
+                .capacity);
+        System.arraycopy(snapshot.getAskPrices(), 0, this.askPrices, 0,
+                this.askEnd);
+        System.arraycopy(snapshot.getAskAmounts(), 0, this.askAmounts, 0,
+                this.askEnd);
+        this.stale = false;
+        this.snapshotUsed = true;
+        this.snapshotTimestamp = snapshot.getTimestamp();
+    }
+
+    /**
+     * Replay a trade of the market, which the generated levels follow.
+     *
+     * @param timestamp the time (UNIX time seconds) of the trade.
+     * @param price     the price of the trade.
+     * @param amount    the amount of the trade.
+     */
+    public void onTrade(long timestamp, double price, double amount) {
+        if (Double.isNaN(this.lastPrice)) {
+            this.averageAmount = amount;
+        } else {
+            this.averageAmount += ALPHA * (amount - this.averageAmount);
+        }
+        this.lastPrice = price;
+        if (this.snapshotUsed && timestamp - this.snapshotTimestamp >= this
+                .snapshotLifetime) {
+            this.snapshotUsed = false;
+        }
+        this.stale = !this.snapshotUsed;
+    }
+
+    /**
+     * Remove every level and forget the replayed trades, e.g. before
+     * replaying trades again.
+     */
+    public void clear() {
+        this.bidStart = 0;
+        this.bidEnd = 0;
+        this.askStart = 0;
+        this.askEnd = 0;
+        this.lastPrice = Double.NaN;
+        this.stale = false;
+        this.snapshotUsed = false;
+    }
+
+    /**
+     * Fill a market buy order against the asks.
+     *
+     * @param amount the amount to buy.
+     * @return the average price the order was filled at.
+     */
+    public double buy(double amount) {
+        refresh();
+        double cost = 0D;
+        double remaining = amount;
+        while (remaining > 0D && this.askStart < this.askEnd) {
+            double filled = Math.min(remaining, this.askAmounts[this
+                    .askStart]);
+            cost += filled * this.askPrices[this.askStart];
+            remaining -= filled;
+            this.askAmounts[this.askStart] -= filled;
+            if (this.askAmounts[this.askStart] <= 0D) {
+                this.askStart++;
+            }
+        }
+        return averagePrice(amount, cost, remaining, this.askPrices, this
+                .askEnd);
+    }
+
+    /**
+     * Fill a market buy order against the asks, spending a given value
+     * instead of buying a given amount.
+     *
+     * @param value the value (in the quote currency) to spend.
+     * @return the amount bought, or NaN if there are no asks.
+     */
+    public double spend(double value) {
+        refresh();
+        if (this.askStart == this.askEnd) {
+            return Double.NaN;
+        }
+        double bought = 0D;
+        double remaining = value;
+        while (remaining > 0D && this.askStart < this.askEnd) {
+            double price = this.askPrices[this.askStart];
+            double filled = Math.min(remaining / price, this.askAmounts[this
+                    .askStart]);
+            bought += filled;
+            remaining -= filled * price;
+            this.askAmounts[this.askStart] -= filled;
+            if (this.askAmounts[this.askStart] <= 0D) {
+                this.askStart++;
+            }
+        }
+        if (remaining > 0D) {
+            // Beyond the whole side, bought at the price of its last level
+            bought += remaining / this.askPrices[this.askEnd - 1];
+        }
+        return bought;
+    }
+
+    /**
+     * Fill a market sell order against the bids.
+     *
+     * @param amount the amount to sell.
+     * @return the average price the order was filled at.
+     */
+    public double sell(double amount) {
+        refresh();
+        double proceeds = 0D;
+        double remaining = amount;
+        while (remaining > 0D && this.bidStart < this.bidEnd) {
+            double filled = Math.min(remaining, this.bidAmounts[this
+                    .bidStart]);
+            proceeds += filled * this.bidPrices[this.bidStart];
+            remaining -= filled;
+            this.bidAmounts[this.bidStart] -= filled;
+            if (this.bidAmounts[this.bidStart] <= 0D) {
+                this.bidStart++;
+            }
+        }
+        return averagePrice(amount, proceeds, remaining, this.bidPrices,
+                this.bidEnd);
+    }
+
+    /**
+     * @return the price of the best bid, or NaN if there is none.
+     */
+    public double getBestBid() {
+        refresh();
+        return this.bidStart < this.bidEnd ? this.bidPrices[this.bidStart]
+                : Double.NaN;
+    }
+
+    /**
+     * @return the price of the best ask, or NaN if there is none.
+     */
+    public double getBestAsk() {
+        refresh();
+        return this.askStart < this.askEnd ? this.askPrices[this.askStart]
+                : Double.NaN;
+    }
+
+    /**
+     * The part of an order larger than the whole side is filled at the
+     * price of its last level, or NaN if the side was empty.
+     */
+    private static double averagePrice(double amount, double value, double
+            remaining, double[] prices, int end) {
+        if (remaining > 0D) {
+            if (end == 0) {
+                return Double.NaN;
+            }
+            value += remaining * prices[end - 1];
+        }
+        return value / amount;
+    }
+
+    /**
+     * Generate the levels centered on the last trade price, if trades were
+     * replayed since they were last generated.
+     */
+    private void refresh() {
+        if (!this.stale) {
+            return;
+        }
+        double amount = this.averageAmount * this.depthRatio;
+        this.bidEnd = 0;
+        for (int i = 0; i < this.capacity; i++) {
+            double bidPrice = this.lastPrice - (i + 0.5D) * this.tickSize;
+            if (bidPrice > 0D) {
+                this.bidPrices[i] = bidPrice;
+                this.bidAmounts[i] = amount;
+                this.bidEnd++;
+            }
+            this.askPrices[i] = this.lastPrice + (i + 0.5D) * this.tickSize;
+            this.askAmounts[i] = amount;
+        }
+        this.bidStart = 0;
+        this.askStart = 0;
+        this.askEnd = this.capacity;
+        this.stale = false;
+    }
+
+}
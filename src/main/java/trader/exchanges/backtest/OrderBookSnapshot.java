@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+/**
+ * A recorded state of an order book, best level of each side first. The
+ * arrays are not copied, so they must not be changed once the snapshot is
+ * built.
+ *
+ * @author Joshua Kahn
+ */
+public class OrderBookSnapshot {
+
+    private final long timestamp;
+
+    private final double[] bidPrices;
+    private final double[] bidAmounts;
+    private final double[] askPrices;
+    private final double[] askAmounts;
+
+    /**
+     * @param timestamp  the time (UNIX time seconds) of the snapshot.
+     * @param bidPrices  the prices of the bids, in decreasing order.
+     * @param bidAmounts the amounts of the bids.
+     * @param askPrices  the prices of the asks, in increasing order.
+     * @param askAmounts the amounts of the asks.
+     */
+    public OrderBookSnapshot(long timestamp, double[] bidPrices, double[]
+            bidAmounts, double[] askPrices, double[] askAmounts) {
+        if (bidPrices.length != bidAmounts.length || askPrices.length !=
+                askAmounts.length) {
+            throw new IllegalArgumentException("Each level must have a " +
+                    "price and an amount");
+        }
+        this.timestamp = timestamp;
+        this.bidPrices = bidPrices;
+        this.bidAmounts = bidAmounts;
+        this.askPrices = askPrices;
+        this.askAmounts = askAmounts;
+    }
+
+    /**
+     * @return the time (UNIX time seconds) of the snapshot.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    double[] getBidPrices() {
+        return this.bidPrices;
+    }
+
+    double[] getBidAmounts() {
+        return this.bidAmounts;
+    }
+
+    double[] getAskPrices() {
+        return this.askPrices;
+    }
+
+    double[] getAskAmounts() {
+        return this.askAmounts;
+    }
+
+}
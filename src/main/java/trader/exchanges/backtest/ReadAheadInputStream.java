@@ -0,0 +1,210 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An {@link java.io.InputStream InputStream} reading its source ahead on a
+ * separate thread. Any work done by the source (e.g. decompressing a file)
+ * then runs in parallel with the work done on what is read. The blocks
+ * read are handed back to the reader thread to be filled again, so reading
+ * a long source doesn't allocate a new block each time.
+ *
+ * @author Joshua Kahn
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    /**
+     * The number of blocks read ahead of the consumer.
+     */
+    private static final int BLOCKS_AHEAD = 4;
+
+    /**
+     * The block marking the end of the source.
+     */
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>
+            (BLOCKS_AHEAD);
+
+    /**
+     * The full blocks read by the consumer, handed back to the reader thread
+     * to be filled again.
+     */
+    private final BlockingQueue<byte[]> freeBlocks = new
+            ArrayBlockingQueue<>(BLOCKS_AHEAD + 1);
+
+    private final Thread readerThread;
+
+    /**
+     * The error that stopped the reader thread, if any: an
+     * {@link IOException}, a {@link RuntimeException} or an {@link Error}.
+     */
+    private volatile Throwable failure;
+
+    private byte[] block;
+
+    private int position;
+
+    private boolean closed;
+
+    public ReadAheadInputStream(InputStream source, String name) {
+        this.readerThread = new Thread(() -> readSource(source), name);
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!hasBlock()) {
+            return -1;
+        }
+        return this.block[this.position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!hasBlock()) {
+            return -1;
+        }
+        int read = Math.min(len, this.block.length - this.position);
+        System.arraycopy(this.block, this.position, b, off, read);
+        this.position += read;
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!this.closed) {
+            this.closed = true;
+            this.readerThread.interrupt();
+            this.block = null;
+            this.blocks.clear();
+            this.freeBlocks.clear();
+        }
+    }
+
+    /**
+     * Make sure there is something left to read in {@code block}.
+     *
+     * @return false if the whole source was read.
+     * @throws IOException if the source can't be read, or the stream was
+     *                     closed.
+     */
+    private boolean hasBlock() throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+        if (this.block == END) {
+            return false;
+        }
+        if (this.block == null || this.position == this.block.length) {
+            if (this.block != null && this.block.length == BLOCK_SIZE) {
+                // Dropped if the reader thread already has enough blocks
+                this.freeBlocks.offer(this.block);
+            }
+            try {
+                this.block = this.blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            this.position = 0;
+            if (this.block == END) {
+                throwFailure();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rethrow the error that stopped the reader thread, if any.
+     */
+    private void throwFailure() throws IOException {
+        Throwable error = this.failure;
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        }
+    }
+
+    private void readSource(InputStream source) {
+        boolean closed = false;
+        try {
+            int read;
+            do {
+                byte[] buffer = this.freeBlocks.poll();
+                if (buffer == null) {
+                    buffer = new byte[BLOCK_SIZE];
+                }
+                read = 0;
+                int n;
+                while (read < BLOCK_SIZE && (n = source.read(buffer, read,
+                        BLOCK_SIZE - read)) != -1) {
+                    read += n;
+                }
+                if (read > 0) {
+                    this.blocks.put(read == BLOCK_SIZE ? buffer : Arrays
+                            .copyOf(buffer, read));
+                }
+            } while (read == BLOCK_SIZE);
+        } catch (InterruptedException e) {
+            // The stream was closed
+            closed = true;
+        } catch (IOException | RuntimeException | Error e) {
+            this.failure = e;
+        } finally {
+            try {
+                source.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                // Whatever happened, the consumer must not wait forever
+                if (!closed) {
+                    try {
+                        this.blocks.put(END);
+                    } catch (InterruptedException e) {
+                        // The stream was closed
+                    }
+                }
+            }
+        }
+    }
+
+}
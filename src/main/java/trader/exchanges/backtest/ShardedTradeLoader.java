@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import eu.verdelhan.ta4j.Tick;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Builds ticks from a history of trades sharded in several CSV files (e.g.
+ * one file per month). The shards are read concurrently and stitched into
+ * one list of ticks.
+ * <p>
+ * The shards are ordered by the timestamp of their first trade. Every shard
+ * is trusted to be complete from its first trade onwards, so the trades of
+ * a shard at or after the first trade of the next shard are the ones
+ * overlapping with it and are dropped.
+ *
+ * @author Joshua Kahn
+ */
+public class ShardedTradeLoader {
+
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Build the ticks of several CSV files of trades, skipping their header
+     * lines. Gzip compressed files (ending in {@code .gz}) are decompressed
+     * on the fly.
+     *
+     * @param shards   the CSV files.
+     * @param duration the length (in seconds) of each tick.
+     * @return the non-empty ticks, in chronological order.
+     * @throws IOException if a file can't be read.
+     */
+    public static List<Tick> loadTicks(List<Path> shards, int duration)
+            throws IOException {
+        try {
+            // Ordering the shards by their first trade
+            long[] firstTimestamps = shards.parallelStream().mapToLong
+                    (ShardedTradeLoader::getFirstTimestamp).toArray();
+            Integer[] order = IntStream.range(0, shards.size()).filter(i ->
+                    firstTimestamps[i] >= 0).boxed().sorted(Comparator
+                    .comparingLong(i -> firstTimestamps[i])).toArray
+                    (Integer[]::new);
+            if (order.length == 0) {
+                return new ArrayList<>();
+            }
+            long beginTimestamp = firstTimestamps[order[0]];
+
+            List<List<Tick>> shardTicks = IntStream.range(0, order.length)
+                    .parallel().mapToObj(i -> loadShard(shards.get(order[i]),
+                            beginTimestamp, i + 1 < order.length ?
+                                    firstTimestamps[order[i + 1]] : Long
+                                    .MAX_VALUE, duration)).collect(Collectors
+                            .toList());
+
+            // Stitching the shards, a tick may straddle two shards
+            List<Tick> ticks = new ArrayList<>();
+            for (List<Tick> shard : shardTicks) {
+                ticks = ChunkedTradeLoader.mergeTicks(ticks, shard);
+            }
+            return ticks;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @param shard a CSV file.
+     * @return the time (UNIX time seconds) of its first trade, or -1 if it
+     * holds no trades.
+     */
+    private static long getFirstTimestamp(Path shard) {
+        try (TradeFileReader reader = openShard(shard)) {
+            return reader.next() ? reader.getTimestamp() : -1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Build the ticks of the trades of a shard before {@code endTimestamp}.
+     *
+     * @param shard          a CSV file.
+     * @param beginTimestamp the time (UNIX time seconds) the first tick of
+     *                       the whole history begins at.
+     * @param endTimestamp   the time (UNIX time seconds) of the first trade
+     *                       of the next shard.
+     * @param duration       the length (in seconds) of each tick.
+     * @return the non-empty ticks, in chronological order.
+     */
+    private static List<Tick> loadShard(Path shard, long beginTimestamp, long
+            endTimestamp, int duration) {
+        TickAggregator aggregator = new TickAggregator(beginTimestamp,
+                duration);
+        try (TradeFileReader reader = openShard(shard)) {
+            while (reader.next()) {
+                if (reader.getTimestamp() < endTimestamp) {
+                    aggregator.addTrade(reader.getTimestamp(), reader
+                            .getPrice(), reader.getAmount());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return aggregator.getTicks();
+    }
+
+    /**
+     * Open a shard, positioned on its first trade.
+     *
+     * @param shard a CSV file, possibly gzip compressed.
+     * @return a reader of the trades of the shard.
+     * @throws IOException if the file can't be opened.
+     */
+    private static TradeFileReader openShard(Path shard) throws IOException {
+        TradeFileReader reader;
+        if (shard.getFileName().toString().endsWith(".gz")) {
+            reader = new TradeFileReader(Channels.newChannel(new
+                    ReadAheadInputStream(new GZIPInputStream(Files
+                    .newInputStream(shard), GZIP_BUFFER_SIZE),
+                    "Decompressing " + shard.getFileName())));
+        } else {
+            FileChannel channel = FileChannel.open(shard, StandardOpenOption
+                    .READ);
+            reader = new TradeFileReader(channel, 0, channel.size());
+        }
+        // Skipping the header line
+        reader.skipLine();
+        return reader;
+    }
+
+}
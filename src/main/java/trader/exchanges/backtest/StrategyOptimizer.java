@@ -0,0 +1,185 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import eu.verdelhan.ta4j.Strategy;
+import eu.verdelhan.ta4j.TimeSeries;
+import org.jooq.lambda.tuple.Tuple2;
+import trader.indicators.IndicatorRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Backtests a strategy with many sets of parameters on a
+ * {@link java.util.concurrent.ForkJoinPool ForkJoinPool}, and ranks them by
+ * a criterion of their {@link BacktestResult}.
+ * <p/>
+ * Every strategy is built on the same {@link IndicatorRegistry}, so an
+ * indicator is only computed once for all the parameter sets using it. The
+ * strategies must be built on double indicators, which can be shared across
+ * threads, unlike ta4j's cached indicators.
+ *
+ * @param <P> the type of the parameters of the strategy.
+ * @author Joshua Kahn
+ */
+public class StrategyOptimizer<P> {
+
+    private final TimeSeries series;
+
+    private final double transactionPercentCost;
+
+    private final double transactionFixedCost;
+
+    private final IndicatorRegistry registry;
+
+    private final BiFunction<IndicatorRegistry, P, Strategy> factory;
+
+    /**
+     * @param series                 the series to backtest on.
+     * @param transactionPercentCost the cost of a trade, as a ratio of its
+     *                               amount.
+     * @param transactionFixedCost   the fixed cost of a trade.
+     * @param factory                builds the strategy for a set of
+     *                               parameters, on double indicators of the
+     *                               registry.
+     */
+    public StrategyOptimizer(TimeSeries series, double
+            transactionPercentCost, double transactionFixedCost,
+                             BiFunction<IndicatorRegistry, P, Strategy>
+                                     factory) {
+        this.series = series;
+        this.transactionPercentCost = transactionPercentCost;
+        this.transactionFixedCost = transactionFixedCost;
+        this.registry = new IndicatorRegistry(series);
+        this.factory = factory;
+    }
+
+    /**
+     * Backtest every set of parameters.
+     *
+     * @param parameters the sets of parameters to backtest.
+     * @param criterion  the criterion to rank the results by, higher values
+     *                   first (e.g. {@code BacktestResult::getProfit}).
+     * @return the parameters with their result, the best first.
+     */
+    public List<Tuple2<P, BacktestResult>> optimize(List<P> parameters,
+                                                    ToDoubleFunction
+                                                            <BacktestResult>
+                                                            criterion) {
+        List<BacktestResult> results = backtestAll(parameters, this::backtest);
+
+        // Ranking on precomputed scores, a NaN score comes last
+        double[] scores = new double[results.size()];
+        Integer[] order = new Integer[results.size()];
+        for (int i = 0; i < scores.length; i++) {
+            double score = criterion.applyAsDouble(results.get(i));
+            scores[i] = Double.isNaN(score) ? Double.NEGATIVE_INFINITY :
+                    score;
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+
+        List<Tuple2<P, BacktestResult>> ranked = new ArrayList<>(results
+                .size());
+        for (int i : order) {
+            ranked.add(new Tuple2<>(parameters.get(i), results.get(i)));
+        }
+        return ranked;
+    }
+
+    /**
+     * @param p the parameters of the strategy.
+     * @return the result of the backtest of the strategy.
+     */
+    BacktestResult backtest(P p) {
+        return new BacktestResult(series, transactionPercentCost,
+                transactionFixedCost, factory.apply(registry, p)).test();
+    }
+
+    /**
+     * Backtest every set of parameters on the common
+     * {@link ForkJoinPool ForkJoinPool}.
+     *
+     * @param parameters the sets of parameters to backtest.
+     * @param backtest   backtests a set of parameters.
+     * @param <T>        the type of the parameters.
+     * @param <R>        the type of the results.
+     * @return the results, in the order of the parameters.
+     */
+    @SuppressWarnings("unchecked")
+    static <T, R> List<R> backtestAll(List<T> parameters, Function<T, R>
+            backtest) {
+        Object[] results = new Object[parameters.size()];
+        if (!parameters.isEmpty()) {
+            ForkJoinPool.commonPool().invoke(new BacktestTask<>(parameters,
+                    backtest, results, 0, results.length));
+        }
+        return (List<R>) Arrays.asList(results);
+    }
+
+    /**
+     * Backtests a range of the sets of parameters, splitting it in halves
+     * down to a single set.
+     */
+    private static class BacktestTask<T> extends RecursiveAction {
+
+        private final List<T> parameters;
+        private final Function<T, ?> backtest;
+        private final Object[] results;
+        private final int first;
+        private final int last;
+
+        BacktestTask(List<T> parameters, Function<T, ?> backtest, Object[]
+                results, int first, int last) {
+            this.parameters = parameters;
+            this.backtest = backtest;
+            this.results = results;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.last - this.first > 1) {
+                int middle = (this.first + this.last) >>> 1;
+                invokeAll(new BacktestTask<>(this.parameters, this.backtest,
+                        this.results, this.first, middle), new BacktestTask<>
+                        (this.parameters, this.backtest, this.results, middle,
+                                this.last));
+                return;
+            }
+            this.results[this.first] = this.backtest.apply(this.parameters
+                    .get(this.first));
+        }
+
+    }
+
+}
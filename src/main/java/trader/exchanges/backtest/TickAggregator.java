@@ -0,0 +1,193 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import eu.verdelhan.ta4j.Tick;
+import org.joda.time.DateTime;
+import org.joda.time.Period;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Folds trades, or shorter ticks, into the ticks they belong to. The ticks
+ * are aligned on a begin timestamp and only the ticks that actually receive
+ * a trade are created.
+ *
+ * @author Joshua Kahn
+ */
+public class TickAggregator {
+
+    /**
+     * The time (UNIX time seconds) the first tick begins at.
+     */
+    private final long beginTimestamp;
+
+    /**
+     * The length of time (in seconds) for each tick.
+     */
+    private final int duration;
+
+    private final Period tickTimePeriod;
+
+    /**
+     * The non-empty ticks, in chronological order.
+     */
+    private final List<Tick> ticks = new ArrayList<>();
+
+    /**
+     * The position (counted in ticks from {@code beginTimestamp}) of the
+     * last tick of {@code ticks}.
+     */
+    private long lastTickIndex = -1;
+
+    private long skippedTrades = 0;
+
+    public TickAggregator(long beginTimestamp, int duration) {
+        this.beginTimestamp = beginTimestamp;
+        this.duration = duration;
+        this.tickTimePeriod = Period.seconds(duration);
+    }
+
+    /**
+     * Add a trade to the tick it belongs to, creating that tick if needed.
+     *
+     * @param timestamp the time (UNIX time seconds) of the trade.
+     * @param price     the price of the trade.
+     * @param amount    the amount traded.
+     * @return false if the trade is older than the first tick and was
+     * skipped.
+     */
+    public boolean addTrade(long timestamp, double price, double amount) {
+        if (timestamp < this.beginTimestamp) {
+            this.skippedTrades++;
+            return false;
+        }
+        long tickIndex = (timestamp - this.beginTimestamp) / this.duration;
+
+        Tick tick;
+        if (tickIndex > this.lastTickIndex) {
+            // Trades usually come in chronological order
+            tick = newTick(tickIndex);
+            this.ticks.add(tick);
+            this.lastTickIndex = tickIndex;
+        } else if (tickIndex == this.lastTickIndex) {
+            tick = this.ticks.get(this.ticks.size() - 1);
+        } else {
+            tick = getOrInsertTick(tickIndex);
+        }
+        tick.addTrade(amount, price);
+        return true;
+    }
+
+    /**
+     * Fold a whole tick, e.g. a one minute tick into a one hour tick, into
+     * the tick it belongs to. The tick must fit entirely in one of the
+     * ticks built here.
+     *
+     * @param tick the tick to add, ticks must be added in chronological
+     *             order.
+     */
+    public void addTick(Tick tick) {
+        long tickBeginTimestamp = tick.getBeginTime().getMillis() / 1000L;
+        if (tickBeginTimestamp < this.beginTimestamp) {
+            throw new IllegalArgumentException("The tick begins before the " +
+                    "first tick");
+        }
+        long tickIndex = (tickBeginTimestamp - this.beginTimestamp) / this
+                .duration;
+        long tickEndTime = (this.beginTimestamp + ((tickIndex + 1) * this
+                .duration)) * 1000L;
+        if (tick.getEndTime().getMillis() > tickEndTime) {
+            throw new IllegalArgumentException("The tick doesn't fit in a " +
+                    "single tick of " + this.duration + " seconds");
+        }
+
+        if (tickIndex > this.lastTickIndex) {
+            this.ticks.add(new AggregatedTick(this.tickTimePeriod, new
+                    DateTime(tickEndTime), tick.getOpenPrice(), tick
+                    .getMaxPrice(), tick.getMinPrice(), tick.getClosePrice(),
+                    tick.getAmount(), tick.getVolume(), tick.getTrades()));
+            this.lastTickIndex = tickIndex;
+        } else if (tickIndex == this.lastTickIndex) {
+            int lastTick = this.ticks.size() - 1;
+            this.ticks.set(lastTick, AggregatedTick.merge(this.ticks.get
+                    (lastTick), tick));
+        } else {
+            throw new IllegalArgumentException("Ticks must be added in " +
+                    "chronological order");
+        }
+    }
+
+    /**
+     * @return the non-empty ticks, in chronological order.
+     */
+    public List<Tick> getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * @return the number of trades older than the first tick.
+     */
+    public long getSkippedTrades() {
+        return this.skippedTrades;
+    }
+
+    private Tick newTick(long tickIndex) {
+        return new Tick(this.tickTimePeriod, new DateTime((this
+                .beginTimestamp + ((tickIndex + 1) * this.duration)) *
+                1000L));
+    }
+
+    /**
+     * Find the tick at {@code tickIndex} for a trade that came out of
+     * order, inserting it if no trade fell in it yet.
+     *
+     * @param tickIndex the position (counted in ticks from {@code
+     *                  beginTimestamp}) of the tick.
+     * @return the tick at {@code tickIndex}.
+     */
+    private Tick getOrInsertTick(long tickIndex) {
+        long endTime = (this.beginTimestamp + ((tickIndex + 1) * this
+                .duration)) * 1000L;
+        int low = 0;
+        int high = this.ticks.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleEndTime = this.ticks.get(middle).getEndTime()
+                    .getMillis();
+            if (middleEndTime < endTime) {
+                low = middle + 1;
+            } else if (middleEndTime > endTime) {
+                high = middle - 1;
+            } else {
+                return this.ticks.get(middle);
+            }
+        }
+        Tick tick = newTick(tickIndex);
+        this.ticks.add(low, tick);
+        return tick;
+    }
+
+}
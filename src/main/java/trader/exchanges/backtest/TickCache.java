@@ -0,0 +1,349 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import eu.verdelhan.ta4j.Decimal;
+import eu.verdelhan.ta4j.Tick;
+import org.joda.time.DateTime;
+import org.joda.time.Period;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact, columnar, binary copy of the ticks built from a CSV file of
+ * trades. Reading it back only memory-maps the file and walks primitive
+ * columns, so no text has to be parsed. Each column is mapped on its own,
+ * which caps the cache at {@link Integer#MAX_VALUE} / 8 ticks.
+ * <p>
+ * The file is laid out as a header followed by one column per field:
+ * <pre>
+ * int    magic
+ * int    version
+ * long   source CSV size
+ * long   source CSV last modified time
+ * int    seconds per tick
+ * int    tick count (n)
+ * long[n]   end times (milliseconds)
+ * double[n] open prices
+ * double[n] max prices
+ * double[n] min prices
+ * double[n] close prices
+ * long[n]   amounts, high 64 bits of the unscaled values
+ * long[n]   amounts, low 64 bits of the unscaled values
+ * long[n]   volumes, high 64 bits of the unscaled values
+ * long[n]   volumes, low 64 bits of the unscaled values
+ * int[n]    amount scales
+ * int[n]    volume scales
+ * int[n]    trade counts
+ * </pre>
+ * The prices are those of single trades, which are read as doubles. The
+ * amounts and the volumes are sums of many trades, so they are kept as
+ * exact decimals: a 128 bit unscaled value and a scale hold any
+ * {@link Decimal} of {@link Decimal#MATH_CONTEXT} precision.
+ * The cache is stale, and has to be rebuilt, as soon as the size or the
+ * last modified time of the source CSV changes.
+ *
+ * @author Joshua Kahn
+ */
+public class TickCache {
+
+    /**
+     * The extension appended to the source CSV file name.
+     */
+    public static final String EXTENSION = ".ticks";
+
+    private static final int MAGIC = 0x4A425443;
+
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * The number of bytes used by every tick: five longs, four doubles and
+     * three ints.
+     */
+    private static final int TICK_SIZE = (5 * 8) + (4 * 8) + (3 * 4);
+
+    /**
+     * The number of columns of 8 byte values, before the columns of ints.
+     */
+    private static final int LONG_COLUMNS = 9;
+
+    /**
+     * The largest number of ticks cached. Each column is mapped on its own,
+     * and a mapping can't be larger than {@link Integer#MAX_VALUE} bytes.
+     */
+    private static final int MAXIMUM_TICK_COUNT = Integer.MAX_VALUE / 8;
+
+    /**
+     * The scale standing for a NaN amount or volume.
+     */
+    private static final int NAN_SCALE = Integer.MIN_VALUE;
+
+    private static final BigInteger LOW_BITS = BigInteger.ONE.shiftLeft(64)
+            .subtract(BigInteger.ONE);
+
+    /**
+     * Get the cache file to use for a source CSV file.
+     *
+     * @param sourceFile the CSV file of trades.
+     * @return the cache file, next to {@code sourceFile}.
+     */
+    public static Path getCacheFile(Path sourceFile) {
+        return sourceFile.resolveSibling(sourceFile.getFileName() +
+                EXTENSION);
+    }
+
+    /**
+     * Read the ticks cached for {@code sourceFile}.
+     *
+     * @param sourceFile     the CSV file of trades the ticks were built from.
+     * @param secondsPerTick the length (in seconds) of each tick.
+     * @return the cached ticks, or null if there is no cache or it is stale.
+     * @throws IOException if the cache can't be read, or holds too many
+     *                     ticks to be mapped.
+     */
+    public static List<Tick> read(Path sourceFile, int secondsPerTick)
+            throws IOException {
+        Path cacheFile = getCacheFile(sourceFile);
+        if (!Files.isRegularFile(cacheFile) || Files.size(cacheFile) <
+                HEADER_SIZE) {
+            return null;
+        }
+
+        LongBuffer endTimes;
+        DoubleBuffer openPrices;
+        DoubleBuffer maxPrices;
+        DoubleBuffer minPrices;
+        DoubleBuffer closePrices;
+        LongBuffer amountsHigh;
+        LongBuffer amountsLow;
+        LongBuffer volumesHigh;
+        LongBuffer volumesLow;
+        IntBuffer amountScales;
+        IntBuffer volumeScales;
+        IntBuffer trades;
+        int tickCount;
+        try (FileChannel channel = FileChannel.open(cacheFile,
+                StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode
+                    .READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION ||
+                    header.getLong() != Files.size(sourceFile) || header
+                    .getLong() != Files.getLastModifiedTime(sourceFile)
+                    .toMillis() || header.getInt() != secondsPerTick) {
+                return null;
+            }
+            tickCount = header.getInt();
+            if (tickCount < 0 || channel.size() != HEADER_SIZE + ((long)
+                    tickCount * TICK_SIZE)) {
+                return null;
+            }
+            if (tickCount > MAXIMUM_TICK_COUNT) {
+                throw new IOException("Too many ticks to map: " + tickCount
+                        + " (at most " + MAXIMUM_TICK_COUNT + ")");
+            }
+
+            // The mappings stay valid once the channel is closed
+            endTimes = column(channel, 0, tickCount).asLongBuffer();
+            openPrices = column(channel, 1, tickCount).asDoubleBuffer();
+            maxPrices = column(channel, 2, tickCount).asDoubleBuffer();
+            minPrices = column(channel, 3, tickCount).asDoubleBuffer();
+            closePrices = column(channel, 4, tickCount).asDoubleBuffer();
+            amountsHigh = column(channel, 5, tickCount).asLongBuffer();
+            amountsLow = column(channel, 6, tickCount).asLongBuffer();
+            volumesHigh = column(channel, 7, tickCount).asLongBuffer();
+            volumesLow = column(channel, 8, tickCount).asLongBuffer();
+            amountScales = column(channel, 9, tickCount).asIntBuffer();
+            volumeScales = column(channel, 10, tickCount).asIntBuffer();
+            trades = column(channel, 11, tickCount).asIntBuffer();
+        }
+
+        Period tickTimePeriod = Period.seconds(secondsPerTick);
+        List<Tick> ticks = new ArrayList<>(tickCount);
+        for (int i = 0; i < tickCount; i++) {
+            ticks.add(new AggregatedTick(tickTimePeriod, new DateTime
+                    (endTimes.get(i)), Decimal.valueOf(openPrices.get(i)),
+                    Decimal.valueOf(maxPrices.get(i)), Decimal.valueOf
+                    (minPrices.get(i)), Decimal.valueOf(closePrices.get(i)),
+                    toDecimal(amountsHigh.get(i), amountsLow.get(i),
+                            amountScales.get(i)), toDecimal(volumesHigh.get
+                    (i), volumesLow.get(i), volumeScales.get(i)), trades.get
+                    (i)));
+        }
+        return ticks;
+    }
+
+    /**
+     * Write the ticks built from {@code sourceFile} to its cache file. The
+     * cache is written to a temporary file first, so that a reader never
+     * sees a partially written cache.
+     *
+     * @param sourceFile     the CSV file of trades the ticks were built from.
+     * @param secondsPerTick the length (in seconds) of each tick.
+     * @param ticks          the ticks to cache.
+     * @throws IOException if the cache can't be written, or there are too
+     *                     many ticks to read it back.
+     */
+    public static void write(Path sourceFile, int secondsPerTick, List<Tick>
+            ticks) throws IOException {
+        Path cacheFile = getCacheFile(sourceFile);
+        Path tempFile = cacheFile.resolveSibling(cacheFile.getFileName() +
+                ".tmp");
+        int tickCount = ticks.size();
+        if (tickCount > MAXIMUM_TICK_COUNT) {
+            throw new IOException("Too many ticks to cache: " + tickCount +
+                    " (at most " + MAXIMUM_TICK_COUNT + ")");
+        }
+        BigDecimal[] amounts = new BigDecimal[tickCount];
+        BigDecimal[] volumes = new BigDecimal[tickCount];
+        for (int i = 0; i < tickCount; i++) {
+            amounts[i] = toBigDecimal(ticks.get(i).getAmount());
+            volumes[i] = toBigDecimal(ticks.get(i).getVolume());
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new
+                BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(Files.size(sourceFile));
+            out.writeLong(Files.getLastModifiedTime(sourceFile).toMillis());
+            out.writeInt(secondsPerTick);
+            out.writeInt(tickCount);
+            for (Tick tick : ticks) {
+                out.writeLong(tick.getEndTime().getMillis());
+            }
+            for (Tick tick : ticks) {
+                out.writeDouble(tick.getOpenPrice().toDouble());
+            }
+            for (Tick tick : ticks) {
+                out.writeDouble(tick.getMaxPrice().toDouble());
+            }
+            for (Tick tick : ticks) {
+                out.writeDouble(tick.getMinPrice().toDouble());
+            }
+            for (Tick tick : ticks) {
+                out.writeDouble(tick.getClosePrice().toDouble());
+            }
+            writeUnscaled(out, amounts);
+            writeUnscaled(out, volumes);
+            writeScales(out, amounts);
+            writeScales(out, volumes);
+            for (Tick tick : ticks) {
+                out.writeInt(tick.getTrades());
+            }
+        }
+
+        Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Write the high 64 bits of every unscaled value, then the low 64 bits.
+     */
+    private static void writeUnscaled(DataOutputStream out, BigDecimal[]
+            values) throws IOException {
+        for (BigDecimal value : values) {
+            out.writeLong(value == null ? 0L : value.unscaledValue()
+                    .shiftRight(64).longValue());
+        }
+        for (BigDecimal value : values) {
+            out.writeLong(value == null ? 0L : value.unscaledValue()
+                    .longValue());
+        }
+    }
+
+    private static void writeScales(DataOutputStream out, BigDecimal[]
+            values) throws IOException {
+        for (BigDecimal value : values) {
+            out.writeInt(value == null ? NAN_SCALE : value.scale());
+        }
+    }
+
+    /**
+     * @return the exact value of a decimal, or null for NaN.
+     */
+    private static BigDecimal toBigDecimal(Decimal decimal) {
+        if (decimal.isNaN()) {
+            return null;
+        }
+        BigDecimal value = new BigDecimal(decimal.toString());
+        if (value.unscaledValue().bitLength() > 127) {
+            throw new IllegalArgumentException("Too many digits to cache: " +
+                    decimal);
+        }
+        return value;
+    }
+
+    private static Decimal toDecimal(long high, long low, int scale) {
+        if (scale == NAN_SCALE) {
+            return Decimal.NaN;
+        }
+        BigDecimal value;
+        if (high == (low >> 63)) {
+            // The unscaled value fits in a long
+            value = BigDecimal.valueOf(low, scale);
+        } else {
+            value = new BigDecimal(BigInteger.valueOf(high).shiftLeft(64).or
+                    (BigInteger.valueOf(low).and(LOW_BITS)), scale);
+        }
+        return Decimal.valueOf(value.toString());
+    }
+
+    /**
+     * Map one column of the cache.
+     *
+     * @param channel   the cache file.
+     * @param column    the index of the column (the end times are column 0).
+     * @param tickCount the number of ticks in the cache, at most
+     *                  {@link #MAXIMUM_TICK_COUNT}.
+     * @return a buffer holding the values of the column.
+     * @throws IOException if the column can't be mapped.
+     */
+    private static MappedByteBuffer column(FileChannel channel, int column,
+                                           int tickCount) throws IOException {
+        // The columns of 8 byte values come before the columns of ints
+        long offset = column <= LONG_COLUMNS ? column * 8L : (LONG_COLUMNS *
+                8L) + ((column - LONG_COLUMNS) * 4L);
+        long size = (column < LONG_COLUMNS ? 8L : 4L) * tickCount;
+        return channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE +
+                (offset * tickCount), size);
+    }
+
+}
@@ -0,0 +1,368 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads the trades of a CSV file ({@code timestamp,price,amount} lines)
+ * straight from its bytes, one trade at a time. Only the lines starting
+ * between a begin and an end offset are read, which allows a file to be
+ * split between several readers. A stream (e.g. a decompressed file) can
+ * also be read from start to end.
+ *
+ * @author Joshua Kahn
+ */
+public class TradeFileReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The longest field that can be read, numbers in the CSV files are far
+     * shorter.
+     */
+    private static final int MAX_FIELD_LENGTH = 64;
+
+    /**
+     * Above this mantissa (2^53), a number isn't exactly held by a double
+     * and is parsed by {@link Double#parseDouble(String)}.
+     */
+    private static final long MAX_MANTISSA = 1L << 53;
+
+    /**
+     * The powers of ten exactly held by a double.
+     */
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4,
+            1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+            1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final ReadableByteChannel channel;
+
+    /**
+     * The file read, or null when reading a stream.
+     */
+    private final FileChannel fileChannel;
+
+    /**
+     * The offset after which no line is started.
+     */
+    private final long end;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * The offset in the file of the first byte of {@code buffer}.
+     */
+    private long bufferOffset;
+
+    private final char[] field = new char[MAX_FIELD_LENGTH];
+
+    // The digits of the field being read, without its decimal point, and
+    // the number of digits after the point
+    private long mantissa;
+    private int scale;
+    private boolean pointRead;
+
+    /**
+     * False if the field being read isn't a plain decimal number (e.g. it
+     * has an exponent), or if its mantissa is too large.
+     */
+    private boolean plainField;
+
+    private long lineOffset;
+    private long timestamp;
+    private double price;
+    private double amount;
+
+    /**
+     * @param channel the CSV file.
+     * @param begin   the offset of the first line to read, it must be the
+     *                start of a line.
+     * @param end     the offset after which no line is started.
+     */
+    public TradeFileReader(FileChannel channel, long begin, long end) {
+        this.channel = channel;
+        this.fileChannel = channel;
+        this.end = end;
+        this.bufferOffset = begin;
+        this.buffer.limit(0);
+    }
+
+    /**
+     * @param channel the stream of the CSV file, read until its end.
+     */
+    public TradeFileReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.fileChannel = null;
+        this.end = Long.MAX_VALUE;
+        this.bufferOffset = 0;
+        this.buffer.limit(0);
+    }
+
+    /**
+     * Read the next trade.
+     *
+     * @return false if there are no more trades to read.
+     * @throws IOException if the file can't be read or a line isn't a trade.
+     */
+    public boolean next() throws IOException {
+        while (getOffset() < this.end) {
+            this.lineOffset = getOffset();
+            int fieldIndex = 0;
+            int fieldLength = 0;
+            long lineTimestamp = 0;
+            boolean lineEnded = false;
+            boolean fileEnded = false;
+            startField();
+            while (!lineEnded) {
+                int b = read();
+                if (b == -1 || b == '\n') {
+                    lineEnded = true;
+                    fileEnded = b == -1;
+                } else if (b == ',') {
+                    if (fieldIndex == 1) {
+                        this.price = parseField(fieldLength);
+                    }
+                    fieldIndex++;
+                    fieldLength = 0;
+                    startField();
+                } else if (b != '\r' && b != '"') {
+                    if (fieldIndex == 0) {
+                        if (b < '0' || b > '9') {
+                            throw malformedLine();
+                        }
+                        lineTimestamp = (lineTimestamp * 10) + (b - '0');
+                    } else {
+                        if (b >= '0' && b <= '9' && this.mantissa <
+                                MAX_MANTISSA) {
+                            this.mantissa = (this.mantissa * 10) + (b - '0');
+                            if (this.pointRead) {
+                                this.scale++;
+                            }
+                        } else if (b == '.' && !this.pointRead) {
+                            this.pointRead = true;
+                        } else {
+                            this.plainField = false;
+                        }
+                        if (fieldLength < MAX_FIELD_LENGTH) {
+                            this.field[fieldLength] = (char) b;
+                        }
+                    }
+                    fieldLength++;
+                }
+            }
+
+            if (fieldIndex == 0 && fieldLength == 0) {
+                if (fileEnded) {
+                    // A stream has no size to stop at
+                    return false;
+                }
+                // Skipping blank lines
+                continue;
+            }
+            if (fieldIndex != 2) {
+                throw malformedLine();
+            }
+            this.timestamp = lineTimestamp;
+            this.amount = parseField(fieldLength);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skip the rest of the current line, e.g. a header line.
+     *
+     * @throws IOException if the file can't be read.
+     */
+    public void skipLine() throws IOException {
+        int b;
+        do {
+            b = read();
+        } while (b != -1 && b != '\n');
+    }
+
+    /**
+     * @return the offset of the line of the last trade read.
+     */
+    public long getLineOffset() {
+        return this.lineOffset;
+    }
+
+    /**
+     * @return the offset of the next byte to read.
+     */
+    public long getOffset() {
+        return this.bufferOffset + this.buffer.position();
+    }
+
+    /**
+     * @return the time (UNIX time seconds) of the last trade read.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * @return the price of the last trade read.
+     */
+    public double getPrice() {
+        return this.price;
+    }
+
+    /**
+     * @return the amount of the last trade read.
+     */
+    public double getAmount() {
+        return this.amount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Find the first line starting at or after {@code offset}.
+     *
+     * @param channel the CSV file.
+     * @param offset  any offset in the file.
+     * @return the offset of the start of the line, or the size of the file
+     * if no line starts at or after {@code offset}.
+     * @throws IOException if the file can't be read.
+     */
+    public static long nextLineOffset(FileChannel channel, long offset)
+            throws IOException {
+        if (offset <= 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_FIELD_LENGTH * 4);
+        long position = offset - 1;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Find the start of the line holding the byte before {@code offset}.
+     * Every line starting before the returned offset is complete, e.g. when
+     * {@code offset} is the size of a file still being written to.
+     *
+     * @param channel the CSV file.
+     * @param offset  any offset in the file.
+     * @return the offset following the last line feed before {@code
+     * offset}, or 0 if there is none.
+     * @throws IOException if the file can't be read.
+     */
+    public static long lineStartOffset(FileChannel channel, long offset)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_FIELD_LENGTH * 4);
+        long position = offset;
+        while (position > 0) {
+            int length = (int) Math.min(buffer.capacity(), position);
+            position -= length;
+            buffer.clear();
+            buffer.limit(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private int read() throws IOException {
+        if (!this.buffer.hasRemaining()) {
+            this.bufferOffset += this.buffer.limit();
+            this.buffer.clear();
+            int read;
+            do {
+                read = this.fileChannel != null ? this.fileChannel.read(this
+                        .buffer, this.bufferOffset) : this.channel.read(this
+                        .buffer);
+            } while (read == 0);
+            this.buffer.flip();
+            if (read <= 0) {
+                return -1;
+            }
+        }
+        return this.buffer.get() & 0xFF;
+    }
+
+    private void startField() {
+        this.mantissa = 0;
+        this.scale = 0;
+        this.pointRead = false;
+        this.plainField = true;
+    }
+
+    /**
+     * Parse the field just read. A plain decimal number is parsed without
+     * allocating: its mantissa and power of ten are both exactly held by
+     * doubles, so their quotient is rounded like
+     * {@link Double#parseDouble(String)} would.
+     */
+    private double parseField(int fieldLength) throws IOException {
+        if (fieldLength == 0 || fieldLength > MAX_FIELD_LENGTH) {
+            throw malformedLine();
+        }
+        if (this.plainField && this.mantissa < MAX_MANTISSA && this.scale <
+                POWERS_OF_TEN.length && fieldLength > (this.pointRead ? 1 :
+                0)) {
+            return this.mantissa / POWERS_OF_TEN[this.scale];
+        }
+        try {
+            return Double.parseDouble(new String(this.field, 0,
+                    fieldLength));
+        } catch (NumberFormatException e) {
+            throw malformedLine();
+        }
+    }
+
+    private IOException malformedLine() {
+        return new IOException("Malformed trade on the line starting at " +
+                "offset " + this.lineOffset);
+    }
+
+}
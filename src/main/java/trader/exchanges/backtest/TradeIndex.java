@@ -0,0 +1,255 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A sparse index of a CSV file of trades, mapping the timestamp of a trade
+ * to the offset of its line every {@code BLOCK_SIZE} bytes. It allows
+ * seeking straight to the trades of a time range instead of parsing the
+ * whole file. The trades must be in chronological order.
+ * <p>
+ * The index is stored next to the CSV file and is rebuilt as soon as the
+ * size or the last modified time of the CSV file changes. Building it only
+ * reads one line per block.
+ *
+ * @author Joshua Kahn
+ */
+public class TradeIndex {
+
+    /**
+     * The extension appended to the source CSV file name.
+     */
+    public static final String EXTENSION = ".idx";
+
+    private static final int MAGIC = 0x4A424958;
+
+    private static final int VERSION = 1;
+
+    /**
+     * The number of bytes between two entries of the index.
+     */
+    private static final long BLOCK_SIZE = 256L * 1024;
+
+    /**
+     * The timestamp of the trade starting each indexed line.
+     */
+    private final long[] timestamps;
+
+    /**
+     * The offset of each indexed line.
+     */
+    private final long[] offsets;
+
+    private final long fileSize;
+
+    private TradeIndex(long[] timestamps, long[] offsets, long fileSize) {
+        this.timestamps = timestamps;
+        this.offsets = offsets;
+        this.fileSize = fileSize;
+    }
+
+    /**
+     * Get the index file to use for a source CSV file.
+     *
+     * @param sourceFile the CSV file of trades.
+     * @return the index file, next to {@code sourceFile}.
+     */
+    public static Path getIndexFile(Path sourceFile) {
+        return sourceFile.resolveSibling(sourceFile.getFileName() +
+                EXTENSION);
+    }
+
+    /**
+     * Read the index of {@code sourceFile}, building it first if it doesn't
+     * exist or is stale.
+     *
+     * @param sourceFile the CSV file of trades.
+     * @return the index of {@code sourceFile}.
+     * @throws IOException if the index or the CSV file can't be read.
+     */
+    public static TradeIndex load(Path sourceFile) throws IOException {
+        TradeIndex index = read(sourceFile);
+        if (index == null) {
+            index = build(sourceFile);
+            write(sourceFile, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return the number of entries in the index.
+     */
+    public int size() {
+        return this.timestamps.length;
+    }
+
+    /**
+     * @return the time (UNIX time seconds) of the first trade, or -1 if the
+     * file holds no trades.
+     */
+    public long getFirstTimestamp() {
+        return this.timestamps.length == 0 ? -1 : this.timestamps[0];
+    }
+
+    /**
+     * Get an offset from which every trade at or after {@code timestamp}
+     * can be read.
+     *
+     * @param timestamp a time (UNIX time seconds).
+     * @return the offset of a line starting no later than the first trade
+     * at or after {@code timestamp}.
+     */
+    public long getBeginOffset(long timestamp) {
+        // The trades at the timestamp may start before the first entry
+        // holding it, starting from the entry before
+        int i = firstEntryAtOrAfter(timestamp);
+        if (i == 0) {
+            return this.offsets.length == 0 ? this.fileSize : this
+                    .offsets[0];
+        }
+        return this.offsets[i - 1];
+    }
+
+    /**
+     * Get an offset before which every trade before {@code timestamp}
+     * starts.
+     *
+     * @param timestamp a time (UNIX time seconds).
+     * @return the offset of the first indexed line of a trade at or after
+     * {@code timestamp}, or the size of the file.
+     */
+    public long getEndOffset(long timestamp) {
+        int i = firstEntryAtOrAfter(timestamp);
+        return i == this.offsets.length ? this.fileSize : this.offsets[i];
+    }
+
+    private int firstEntryAtOrAfter(long timestamp) {
+        int low = 0;
+        int high = this.timestamps.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static TradeIndex build(Path sourceFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(sourceFile,
+                StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            int maxEntries = (int) (fileSize / BLOCK_SIZE) + 1;
+            long[] timestamps = new long[maxEntries];
+            long[] offsets = new long[maxEntries];
+            int entries = 0;
+
+            // Skipping the header line
+            long offset = TradeFileReader.nextLineOffset(channel, 1);
+            for (int block = 0; block < maxEntries && offset < fileSize;
+                 block++) {
+                offset = Math.max(offset, TradeFileReader.nextLineOffset
+                        (channel, block * BLOCK_SIZE));
+                TradeFileReader reader = new TradeFileReader(channel, offset,
+                        fileSize);
+                if (!reader.next()) {
+                    break;
+                }
+                timestamps[entries] = reader.getTimestamp();
+                offsets[entries] = reader.getLineOffset();
+                entries++;
+                offset = reader.getOffset();
+            }
+
+            return new TradeIndex(Arrays.copyOf(timestamps, entries), Arrays
+                    .copyOf(offsets, entries), fileSize);
+        }
+    }
+
+    private static TradeIndex read(Path sourceFile) throws IOException {
+        Path indexFile = getIndexFile(sourceFile);
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new
+                BufferedInputStream(Files.newInputStream(indexFile)))) {
+            long fileSize = Files.size(sourceFile);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in
+                    .readLong() != fileSize || in.readLong() != Files
+                    .getLastModifiedTime(sourceFile).toMillis() || in
+                    .readLong() != BLOCK_SIZE) {
+                return null;
+            }
+            int entries = in.readInt();
+            long[] timestamps = new long[entries];
+            long[] offsets = new long[entries];
+            for (int i = 0; i < entries; i++) {
+                timestamps[i] = in.readLong();
+            }
+            for (int i = 0; i < entries; i++) {
+                offsets[i] = in.readLong();
+            }
+            return new TradeIndex(timestamps, offsets, fileSize);
+        }
+    }
+
+    private static void write(Path sourceFile, TradeIndex index) throws
+            IOException {
+        Path indexFile = getIndexFile(sourceFile);
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName() +
+                ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new
+                BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(index.fileSize);
+            out.writeLong(Files.getLastModifiedTime(sourceFile).toMillis());
+            out.writeLong(BLOCK_SIZE);
+            out.writeInt(index.timestamps.length);
+            for (long timestamp : index.timestamps) {
+                out.writeLong(timestamp);
+            }
+            for (long offset : index.offsets) {
+                out.writeLong(offset);
+            }
+        }
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+}
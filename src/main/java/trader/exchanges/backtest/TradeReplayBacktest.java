@@ -0,0 +1,399 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import eu.verdelhan.ta4j.Decimal;
+import eu.verdelhan.ta4j.Strategy;
+import eu.verdelhan.ta4j.TimeSeries;
+import eu.verdelhan.ta4j.TradingRecord;
+import org.joda.time.DateTime;
+import org.joda.time.Period;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * Backtests a strategy by replaying the raw trades of a CSV file in time
+ * order, instead of running it on the close prices of complete ticks.
+ * <p/>
+ * The tick receiving trades is kept in primitive fields, and only added to
+ * the series once a trade of a later tick arrives, so the indicators only
+ * see complete ticks. The strategy is then evaluated on that tick, its
+ * orders being filled at the close price like
+ * {@link TimeSeries#run(Strategy)}. While a trade is opened, every raw
+ * trade is checked against the stop loss and stop gain: the trade crossing
+ * a threshold exits the position, at its own price.
+ * <p/>
+ * The stops of the engine are usually those of the strategy's stop rules,
+ * which are only evaluated on complete ticks.
+ * <p/>
+ * With an {@link OrderBook}, which follows the replayed trades, each order
+ * uses 95% of the wallet like the live trader, and is filled at the average
+ * price of the levels it walks through. The recorded snapshots of the book,
+ * if any, are replayed with the trades, each one before the trades at or
+ * after its time.
+ *
+ * @author Joshua Kahn
+ */
+public class TradeReplayBacktest {
+
+    /**
+     * The part of the wallet used by an order.
+     */
+    private static final double ORDER_RATIO = 0.95D;
+
+    /**
+     * The length of time (in seconds) for each tick.
+     */
+    private final int duration;
+
+    private final Period tickTimePeriod;
+
+    private final double transactionPercentCost;
+
+    private final double transactionFixedCost;
+
+    /**
+     * The ratio of the entry price at which a trade is stopped with a loss.
+     */
+    private final double lossRatio;
+
+    /**
+     * The ratio of the entry price at which a trade is stopped with a gain.
+     */
+    private final double gainRatio;
+
+    private final Function<TimeSeries, Strategy> factory;
+
+    private OrderBook orderBook;
+
+    /**
+     * The recorded snapshots of the order book, in time order.
+     */
+    private Iterable<OrderBookSnapshot> snapshots = Collections.emptyList();
+
+    private Iterator<OrderBookSnapshot> snapshotIterator;
+
+    /**
+     * The next snapshot to replay, or null if there is none.
+     */
+    private OrderBookSnapshot nextSnapshot;
+
+    /**
+     * The amount (in the quote currency) of the wallet at the beginning of
+     * a replay.
+     */
+    private double initialWallet;
+
+    // The wallet during a replay
+    private double cash;
+    private double held;
+
+    private TimeSeries timeSeries;
+
+    private Strategy strategy;
+
+    private TradingRecord tradingRecord;
+
+    /**
+     * The time (UNIX time seconds) the first tick begins at, or -1 before
+     * the first trade.
+     */
+    private long beginTimestamp;
+
+    /**
+     * The position (counted in ticks from {@code beginTimestamp}) of the
+     * tick receiving trades.
+     */
+    private long tickIndex;
+
+    // The tick receiving trades
+    private double openPrice;
+    private double maxPrice;
+    private double minPrice;
+    private double closePrice;
+    private double amount;
+    private double volume;
+    private int trades;
+
+    private boolean inTrade;
+    private double stopLossPrice;
+    private double stopGainPrice;
+
+    private long replayedTrades;
+    private long skippedTrades;
+    private int stops;
+
+    /**
+     * @param duration               the length (in seconds) of each tick.
+     * @param transactionPercentCost the cost of an order, as a ratio of its
+     *                               amount.
+     * @param transactionFixedCost   the fixed cost of an order.
+     * @param stopLossThreshold      the maximum loss (in percent) of a
+     *                               trade, 100 or more for no stop loss.
+     * @param stopGainThreshold      the maximum gain (in percent) of a
+     *                               trade, infinite for no stop gain.
+     * @param factory                builds the strategy on the series of
+     *                               the replayed ticks, which starts empty.
+     */
+    public TradeReplayBacktest(int duration, double transactionPercentCost,
+                               double transactionFixedCost, double
+                                       stopLossThreshold, double
+                                       stopGainThreshold,
+                               Function<TimeSeries, Strategy> factory) {
+        if (duration < 1) {
+            throw new IllegalArgumentException("Duration must be at least " +
+                    "one second");
+        }
+        this.duration = duration;
+        this.tickTimePeriod = Period.seconds(duration);
+        this.transactionPercentCost = transactionPercentCost;
+        this.transactionFixedCost = transactionFixedCost;
+        this.lossRatio = (100D - stopLossThreshold) / 100D;
+        this.gainRatio = (100D + stopGainThreshold) / 100D;
+        this.factory = factory;
+    }
+
+    /**
+     * Fill the orders against a simulated order book, instead of at the
+     * price of the trade triggering them with unlimited liquidity.
+     *
+     * @param orderBook the order book, following the replayed trades.
+     * @param wallet    the amount (in the quote currency) of the wallet at
+     *                  the beginning of a replay.
+     * @return this backtest.
+     */
+    public TradeReplayBacktest orderBook(OrderBook orderBook, double wallet) {
+        if (wallet <= 0D) {
+            throw new IllegalArgumentException("Wallet must be positive");
+        }
+        this.orderBook = orderBook;
+        this.initialWallet = wallet;
+        return this;
+    }
+
+    /**
+     * Replay recorded snapshots of the order book with the trades.
+     *
+     * @param snapshots the snapshots, in time order.
+     * @return this backtest.
+     */
+    public TradeReplayBacktest snapshots(Iterable<OrderBookSnapshot>
+                                                 snapshots) {
+        this.snapshots = snapshots;
+        return this;
+    }
+
+    /**
+     * Replay the trades of a CSV file ({@code timestamp,price,amount}
+     * lines), in time order.
+     *
+     * @param name    the name of the series.
+     * @param channel the trades.
+     * @return the results of the strategy, its trades being priced at the
+     * prices they were filled at.
+     * @throws IOException if the trades can't be read.
+     */
+    public BacktestResult replay(String name, ReadableByteChannel channel)
+            throws IOException {
+        this.timeSeries = new TimeSeries(name);
+        this.strategy = this.factory.apply(this.timeSeries);
+        this.tradingRecord = new TradingRecord();
+        this.beginTimestamp = -1;
+        this.tickIndex = -1;
+        this.trades = 0;
+        this.inTrade = false;
+        this.cash = this.initialWallet;
+        this.held = 0D;
+        if (this.orderBook != null) {
+            this.orderBook.clear();
+            this.snapshotIterator = this.snapshots.iterator();
+            this.nextSnapshot = this.snapshotIterator.hasNext() ? this
+                    .snapshotIterator.next() : null;
+        }
+        this.replayedTrades = 0;
+        this.skippedTrades = 0;
+        this.stops = 0;
+
+        TradeFileReader reader = new TradeFileReader(channel);
+        while (reader.next()) {
+            replay(reader.getTimestamp(), reader.getPrice(), reader
+                    .getAmount());
+        }
+        if (this.trades > 0) {
+            closeTick();
+        }
+
+        return new BacktestResult(this.timeSeries, this
+                .transactionPercentCost, this.transactionFixedCost, this
+                .strategy).atOrderPrices().test(this.tradingRecord);
+    }
+
+    /**
+     * @return the cash (in the quote currency) of the wallet at the end of
+     * the last replay with an order book, the currency held by a trade
+     * still opened excluded.
+     */
+    public double getCash() {
+        return this.cash;
+    }
+
+    /**
+     * @return the number of trades replayed by the last replay.
+     */
+    public long getReplayedTrades() {
+        return this.replayedTrades;
+    }
+
+    /**
+     * @return the number of trades of the last replay older than the tick
+     * receiving trades, which were skipped.
+     */
+    public long getSkippedTrades() {
+        return this.skippedTrades;
+    }
+
+    /**
+     * @return the number of trades of the last replay exited by a stop.
+     */
+    public int getStops() {
+        return this.stops;
+    }
+
+    private void replay(long timestamp, double price, double tradeAmount) {
+        if (this.beginTimestamp < 0) {
+            this.beginTimestamp = timestamp;
+        }
+        long index = (timestamp - this.beginTimestamp) / this.duration;
+        if (timestamp < this.beginTimestamp || index < this.tickIndex) {
+            this.skippedTrades++;
+            return;
+        }
+        if (this.orderBook != null) {
+            // Before the orders of the tick this trade closes
+            while (this.nextSnapshot != null && this.nextSnapshot
+                    .getTimestamp() <= timestamp) {
+                this.orderBook.update(this.nextSnapshot);
+                this.nextSnapshot = this.snapshotIterator.hasNext() ? this
+                        .snapshotIterator.next() : null;
+            }
+        }
+        if (index > this.tickIndex) {
+            if (this.trades > 0) {
+                closeTick();
+            }
+            this.tickIndex = index;
+            this.openPrice = price;
+            this.maxPrice = price;
+            this.minPrice = price;
+            this.amount = 0D;
+            this.volume = 0D;
+            this.trades = 0;
+        } else if (price > this.maxPrice) {
+            this.maxPrice = price;
+        } else if (price < this.minPrice) {
+            this.minPrice = price;
+        }
+        this.closePrice = price;
+        this.amount += tradeAmount;
+        this.volume += tradeAmount * price;
+        this.trades++;
+        this.replayedTrades++;
+        if (this.orderBook != null) {
+            this.orderBook.onTrade(timestamp, price, tradeAmount);
+        }
+
+        if (this.inTrade && (price <= this.stopLossPrice || price >= this
+                .stopGainPrice)) {
+            // Filled on the trade crossing the threshold, in the tick which
+            // will be added next
+            operate(this.timeSeries.getEnd() + 1, price);
+            this.stops++;
+        }
+    }
+
+    /**
+     * Add the tick receiving trades to the series, and evaluate the
+     * strategy on it.
+     */
+    private void closeTick() {
+        this.timeSeries.addTick(new AggregatedTick(this.tickTimePeriod, new
+                DateTime((this.beginTimestamp + (this.tickIndex + 1) * this
+                .duration) * 1000L), this.openPrice, this.maxPrice, this
+                .minPrice, this.closePrice, this.amount, this.volume, this
+                .trades));
+
+        int index = this.timeSeries.getEnd();
+        if (this.strategy.shouldOperate(index, this.tradingRecord)) {
+            operate(index, this.closePrice);
+        }
+    }
+
+    /**
+     * Enter or exit a trade, through the order book if there is one.
+     *
+     * @param index the index of the tick the order belongs to.
+     * @param price the price of the trade triggering the order.
+     */
+    private void operate(int index, double price) {
+        boolean entry = this.tradingRecord.getCurrentTrade().isNew();
+        Decimal amount = Decimal.NaN;
+        if (this.orderBook != null) {
+            double orderAmount;
+            if (entry) {
+                // Spending part of the cash, whatever the fill price
+                double value = this.cash * ORDER_RATIO;
+                orderAmount = this.orderBook.spend(value);
+                if (Double.isNaN(orderAmount)) {
+                    // No asks, bought at the trade price
+                    orderAmount = value / price;
+                }
+                price = value / orderAmount;
+                this.cash -= value;
+                this.held = orderAmount;
+            } else {
+                orderAmount = this.held;
+                double filledPrice = this.orderBook.sell(orderAmount);
+                if (!Double.isNaN(filledPrice)) {
+                    // Otherwise there are no bids, sold at the trade price
+                    price = filledPrice;
+                }
+                this.cash += orderAmount * price;
+                this.held = 0D;
+            }
+            amount = Decimal.valueOf(orderAmount);
+        }
+        this.tradingRecord.operate(index, Decimal.valueOf(price), amount);
+
+        this.inTrade = entry;
+        if (entry) {
+            this.stopLossPrice = price * this.lossRatio;
+            this.stopGainPrice = price * this.gainRatio;
+        }
+    }
+
+}
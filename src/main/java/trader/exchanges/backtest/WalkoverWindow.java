@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.exchanges.backtest;
+
+import eu.verdelhan.ta4j.Strategy;
+
+/**
+ * A window of a walkover test: the strategy chosen on the in-sample ticks,
+ * and its results on the out-of-sample ticks which follow them.
+ *
+ * @author Joshua Kahn
+ */
+public class WalkoverWindow {
+
+    private final BacktestResult inSample;
+
+    private final int strategyIndex;
+
+    private final BacktestResult outOfSample;
+
+    WalkoverWindow(BacktestResult inSample, int strategyIndex,
+                   BacktestResult outOfSample) {
+        this.inSample = inSample;
+        this.strategyIndex = strategyIndex;
+        this.outOfSample = outOfSample;
+    }
+
+    /**
+     * @return the results of every strategy on the in-sample ticks.
+     */
+    public BacktestResult getInSampleResult() {
+        return this.inSample;
+    }
+
+    /**
+     * @return the index of the strategy chosen on the in-sample ticks.
+     */
+    public int getStrategyIndex() {
+        return this.strategyIndex;
+    }
+
+    public Strategy getStrategy() {
+        return this.inSample.getStrategy(this.strategyIndex);
+    }
+
+    /**
+     * @return the results of the chosen strategy on the out-of-sample ticks.
+     */
+    public BacktestResult getOutOfSampleResult() {
+        return this.outOfSample;
+    }
+
+}
@@ -33,6 +33,9 @@ import eu.verdelhan.ta4j.indicators.simple.PreviousPriceIndicator;
 /**
  * Chande Momentum Oscillator.
  * <p/>
+ * The sums of the gains and losses over the window are kept between calls,
+ * so computing the indicator for consecutive indices costs one change in and
+ * one out instead of a pass over the whole window.
  * <p/>
  * Created by Joshua Kahn on 1/7/2016.
  *
@@ -54,6 +57,21 @@ public class CMOIndicator extends CachedIndicator<Decimal> {
 
     private final PreviousPriceIndicator previousPriceIndicator;
 
+    /**
+     * The index the running sums were last computed for.
+     */
+    private int lastIndex = -1;
+
+    /**
+     * The sum of the gains over the window ending at {@code lastIndex}.
+     */
+    private Decimal gains = Decimal.ZERO;
+
+    /**
+     * The sum of the losses over the window ending at {@code lastIndex}.
+     */
+    private Decimal losses = Decimal.ZERO;
+
     public CMOIndicator(TimeSeries timeSeries, int timeFrame) {
         this(new ClosePriceIndicator(timeSeries), timeFrame, new
                 PreviousPriceIndicator(timeSeries));
@@ -69,21 +87,40 @@ public class CMOIndicator extends CachedIndicator<Decimal> {
 
     @Override
     protected Decimal calculate(int index) {
-        Decimal sum1 = Decimal.ZERO;
-        Decimal sum2 = Decimal.ZERO;
-        for (int i = Math.max(0, index - timeFrame + 1); i <= index; i++) {
-            Decimal close = indicator.getValue(i);
-            Decimal prevClose = previousPriceIndicator.getValue(i);
-
-            Decimal d = close.minus(prevClose);
-            if (d.compareTo(Decimal.ZERO) >= 0) {
-                sum1 = sum1.plus(d);
-            } else {
-                sum2 = sum2.plus(d.multipliedBy(NEGATIVE_ONE));
+        if (index == lastIndex + 1) {
+            // Sliding the window by one tick
+            addChange(index, true);
+            if (index - timeFrame >= 0) {
+                addChange(index - timeFrame, false);
+            }
+        } else {
+            gains = Decimal.ZERO;
+            losses = Decimal.ZERO;
+            for (int i = Math.max(0, index - timeFrame + 1); i <= index;
+                 i++) {
+                addChange(i, true);
             }
         }
-        return sum1.minus(sum2).dividedBy(sum1.plus(sum2)).multipliedBy
-                (Decimal.HUNDRED);
+        lastIndex = index;
+        return gains.minus(losses).dividedBy(gains.plus(losses))
+                .multipliedBy(Decimal.HUNDRED);
+    }
+
+    /**
+     * Add or remove the price change at an index to the running sums.
+     *
+     * @param index the index of the change.
+     * @param add   true to add the change to the window, false to remove it.
+     */
+    private void addChange(int index, boolean add) {
+        Decimal d = indicator.getValue(index).minus(previousPriceIndicator
+                .getValue(index));
+        if (d.compareTo(Decimal.ZERO) >= 0) {
+            gains = add ? gains.plus(d) : gains.minus(d);
+        } else {
+            d = d.multipliedBy(NEGATIVE_ONE);
+            losses = add ? losses.plus(d) : losses.minus(d);
+        }
     }
 
     @Override
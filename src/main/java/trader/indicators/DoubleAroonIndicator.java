@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.TimeSeries;
+
+/**
+ * Aroon up or down, the {@code double} counterpart of ta4j's
+ * {@link eu.verdelhan.ta4j.indicators.oscillators.AroonUpIndicator
+ * AroonUpIndicator} and
+ * {@link eu.verdelhan.ta4j.indicators.oscillators.AroonDownIndicator
+ * AroonDownIndicator}: how recent the highest (or lowest) close price of the
+ * time frame is, in percent.
+ *
+ * @author Joshua Kahn
+ */
+public class DoubleAroonIndicator extends DoubleIndicator {
+
+    private final DoubleIndicator closePrice;
+
+    /**
+     * The number of periods to look back.
+     */
+    private final int timeFrame;
+
+    /**
+     * True for Aroon up (the highest price), false for Aroon down.
+     */
+    private final boolean up;
+
+    /**
+     * @param series    the series to compute the indicator on.
+     * @param timeFrame the number of periods to look back.
+     * @param up        true for Aroon up, false for Aroon down.
+     */
+    public DoubleAroonIndicator(TimeSeries series, int timeFrame, boolean up) {
+        this(new DoubleClosePriceIndicator(series), timeFrame, up);
+    }
+
+    public DoubleAroonIndicator(DoubleIndicator closePrice, int timeFrame,
+                                boolean up) {
+        super(closePrice.getTimeSeries());
+        this.closePrice = addInput(closePrice);
+        this.timeFrame = timeFrame;
+        this.up = up;
+    }
+
+    @Override
+    protected double calculate(int index) {
+        int begin = Math.max(0, index - timeFrame + 1);
+        double extreme = closePrice.getValue(index);
+        for (int i = begin; i < index; i++) {
+            double price = closePrice.getValue(i);
+            extreme = up ? Math.max(extreme, price) : Math.min(extreme, price);
+        }
+        int ticks = 0;
+        for (int i = index; i >= begin && closePrice.getValue(i) != extreme;
+             i--) {
+            ticks++;
+        }
+        // Over the ticks of the series while it is shorter than the time
+        // frame, like ta4j
+        int ticksLookedAt = index - begin + 1;
+        return (ticksLookedAt - ticks) * 100.0 / ticksLookedAt;
+    }
+
+    @Override
+    public String toString() {
+        return (up ? "AroonUp" : "AroonDown") + " timeFrame: " + timeFrame;
+    }
+
+}
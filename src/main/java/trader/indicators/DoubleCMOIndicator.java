@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.TimeSeries;
+
+/**
+ * Chande Momentum Oscillator, the {@code double} counterpart of
+ * {@link CMOIndicator}.
+ * <p/>
+ * The gains and losses are summed over the window for each index rather than
+ * kept as running sums: the windows used are short, and a running sum of
+ * doubles wouldn't come back to exactly zero over a flat window.
+ *
+ * @author Joshua Kahn
+ */
+public class DoubleCMOIndicator extends DoubleIndicator {
+
+    private final DoubleIndicator indicator;
+
+    /**
+     * The number of periods to run the indicator.
+     */
+    private final int timeFrame;
+
+    public DoubleCMOIndicator(TimeSeries series, int timeFrame) {
+        this(new DoubleClosePriceIndicator(series), timeFrame);
+    }
+
+    public DoubleCMOIndicator(DoubleIndicator indicator, int timeFrame) {
+        super(indicator.getTimeSeries());
+        this.indicator = addInput(indicator);
+        this.timeFrame = timeFrame;
+    }
+
+    @Override
+    protected double calculate(int index) {
+        double gains = 0;
+        double losses = 0;
+        for (int i = Math.max(0, index - timeFrame + 1); i <= index; i++) {
+            double d = indicator.getValue(i) - indicator.getValue(Math.max(0,
+                    i - 1));
+            if (d >= 0) {
+                gains += d;
+            } else {
+                losses -= d;
+            }
+        }
+        double total = gains + losses;
+        return total == 0 ? Double.NaN : (gains - losses) * 100 / total;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " timeFrame: " + timeFrame;
+    }
+
+}
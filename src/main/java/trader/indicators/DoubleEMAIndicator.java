@@ -0,0 +1,75 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+/**
+ * Exponential moving average, the {@code double} counterpart of ta4j's
+ * {@link eu.verdelhan.ta4j.indicators.trackers.EMAIndicator EMAIndicator}: it
+ * starts as a simple moving average until a whole time frame is available.
+ *
+ * @author Joshua Kahn
+ */
+public class DoubleEMAIndicator extends DoubleIndicator {
+
+    private final DoubleIndicator indicator;
+
+    /**
+     * The number of periods of the average.
+     */
+    private final int timeFrame;
+
+    private final double multiplier;
+
+    /**
+     * The sum of the values before a whole time frame is available.
+     */
+    private double sum;
+
+    public DoubleEMAIndicator(DoubleIndicator indicator, int timeFrame) {
+        super(indicator.getTimeSeries());
+        this.indicator = addInput(indicator);
+        this.timeFrame = timeFrame;
+        this.multiplier = 2.0 / (timeFrame + 1);
+    }
+
+    @Override
+    protected double calculate(int index) {
+        if (index + 1 < timeFrame) {
+            // The simple moving average of the values so far
+            sum += indicator.getValue(index);
+            return sum / (index + 1);
+        }
+        if (index == 0) {
+            return indicator.getValue(0);
+        }
+        double previous = getValue(index - 1);
+        return (indicator.getValue(index) - previous) * multiplier + previous;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " timeFrame: " + timeFrame;
+    }
+
+}
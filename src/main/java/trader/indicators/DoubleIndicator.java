@@ -0,0 +1,227 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.TimeSeries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An indicator of primitive {@code double} values, the counterpart of a ta4j
+ * {@link eu.verdelhan.ta4j.indicators.CachedIndicator CachedIndicator} of
+ * {@link eu.verdelhan.ta4j.Decimal Decimal} values for backtests, where the
+ * precision of a {@code Decimal} isn't needed.
+ * <p/>
+ * The values are cached in a {@code double[]} and are always computed in
+ * index order: requesting an index first computes every index before it, so
+ * {@link #calculate(int)} can rely on the previous value of the indicator (or
+ * of its inputs) being cached and no value is ever boxed.
+ * <p/>
+ * For a backtest, {@link #precompute()} computes the whole series at once:
+ * each input registered with {@link #addInput(DoubleIndicator)} is computed
+ * over the series before the indicator itself, so each pass runs over a
+ * single array and reads its inputs from arrays that are already complete.
+ * <p/>
+ * When the series has a maximum tick count, e.g. in live trading, the values
+ * are kept in a ring buffer of that many values, so the memory used doesn't
+ * grow with the number of ticks received.
+ * <p/>
+ * Values are computed under the lock of the indicator, so strategies
+ * backtested concurrently can share it; reading a value already computed
+ * doesn't lock.
+ *
+ * @author Joshua Kahn
+ */
+public abstract class DoubleIndicator {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final TimeSeries series;
+
+    /**
+     * The values, indexed by the index in the series or, once the series has
+     * a maximum tick count, by the index modulo the length of the array.
+     */
+    private double[] values = new double[0];
+
+    /**
+     * Whether {@code values} is a ring buffer. Once it is, it stays one: the
+     * values it dropped can't be computed again.
+     */
+    private boolean bounded;
+
+    /**
+     * The highest index computed so far, every index up to it is cached
+     * (within the ring buffer once bounded).
+     */
+    private volatile int highestIndex = -1;
+
+    /**
+     * The indicators this indicator is computed from.
+     */
+    private final List<DoubleIndicator> inputs = new ArrayList<>();
+
+    protected DoubleIndicator(TimeSeries series) {
+        this.series = series;
+    }
+
+    /**
+     * @param index the index of a tick of the series.
+     * @return the value of the indicator at {@code index}.
+     */
+    public double getValue(int index) {
+        if (index > highestIndex) {
+            synchronized (this) {
+                if (index > highestIndex) {
+                    reserve(index);
+                    computeUpTo(index);
+                }
+            }
+        } else if (highestIndex - index >= values.length) {
+            // The tick was removed from the series too, which then returns
+            // its oldest tick instead
+            index = highestIndex - values.length + 1;
+        }
+        return values[slot(index)];
+    }
+
+    /**
+     * Compute the indicator over the whole series, after its inputs.
+     */
+    public synchronized void precompute() {
+        int end = series.getEnd();
+        if (end <= highestIndex) {
+            return;
+        }
+        for (DoubleIndicator input : inputs) {
+            input.precompute();
+        }
+        if (bounded || series.getMaximumTickCount() != Integer.MAX_VALUE) {
+            reserve(end);
+        } else if (end >= values.length) {
+            values = Arrays.copyOf(values, end + 1);
+        }
+        computeUpTo(end);
+    }
+
+    /**
+     * Compute several indicators over the whole series, sharing the inputs
+     * they have in common.
+     *
+     * @param indicators the indicators to compute.
+     */
+    public static void precompute(DoubleIndicator... indicators) {
+        for (DoubleIndicator indicator : indicators) {
+            indicator.precompute();
+        }
+    }
+
+    /**
+     * @return the series the indicator is computed on.
+     */
+    public TimeSeries getTimeSeries() {
+        return series;
+    }
+
+    /**
+     * Register an indicator this indicator is computed from, so that it is
+     * computed first by {@link #precompute()}.
+     *
+     * @param input the input indicator.
+     * @return {@code input}.
+     */
+    protected <T extends DoubleIndicator> T addInput(T input) {
+        inputs.add(input);
+        return input;
+    }
+
+    /**
+     * Compute the value at an index, every lower index has been computed.
+     *
+     * @param index the index of a tick of the series.
+     * @return the value of the indicator at {@code index}.
+     */
+    protected abstract double calculate(int index);
+
+    private void computeUpTo(int index) {
+        for (int i = highestIndex + 1; i <= index; i++) {
+            values[slot(i)] = calculate(i);
+            highestIndex = i;
+        }
+    }
+
+    private int slot(int index) {
+        return bounded ? index % values.length : index;
+    }
+
+    /**
+     * Make room for the values up to an index, following the maximum tick
+     * count of the series.
+     *
+     * @param index the index to be computed.
+     */
+    private void reserve(int index) {
+        int maximum = series.getMaximumTickCount();
+        if (maximum != Integer.MAX_VALUE) {
+            if (!bounded || values.length != maximum) {
+                resize(maximum);
+            }
+        } else if (bounded) {
+            // Keeping the last values, the older ones are gone
+            if (values.length < series.getTickCount()) {
+                resize(Math.max(series.getTickCount(), values.length * 2));
+            }
+        } else if (index >= values.length) {
+            values = Arrays.copyOf(values, Math.max(Math.max(index + 1,
+                    series.getEnd() + 1), Math.max(INITIAL_CAPACITY,
+                    values.length * 2)));
+        }
+    }
+
+    /**
+     * Move the values to a ring buffer, keeping the most recent values that
+     * fit.
+     *
+     * @param capacity the number of values of the ring buffer.
+     */
+    private void resize(int capacity) {
+        double[] resized = new double[capacity];
+        int cached = bounded ? Math.min(values.length, highestIndex + 1) :
+                highestIndex + 1;
+        for (int i = Math.max(highestIndex - Math.min(cached, capacity) + 1,
+                0); i <= highestIndex; i++) {
+            resized[i % capacity] = values[slot(i)];
+        }
+        values = resized;
+        bounded = true;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+/**
+ * Moving average convergence divergence, the {@code double} counterpart of
+ * ta4j's {@link eu.verdelhan.ta4j.indicators.trackers.MACDIndicator
+ * MACDIndicator}.
+ *
+ * @author Joshua Kahn
+ */
+public class DoubleMACDIndicator extends DoubleIndicator {
+
+    private final DoubleEMAIndicator shortEma;
+
+    private final DoubleEMAIndicator longEma;
+
+    public DoubleMACDIndicator(DoubleIndicator indicator, int shortTimeFrame,
+                               int longTimeFrame) {
+        super(indicator.getTimeSeries());
+        if (shortTimeFrame > longTimeFrame) {
+            throw new IllegalArgumentException("Long term period count must " +
+                    "be greater than short term period count");
+        }
+        this.shortEma = addInput(new DoubleEMAIndicator(indicator,
+                shortTimeFrame));
+        this.longEma = addInput(new DoubleEMAIndicator(indicator,
+                longTimeFrame));
+    }
+
+    @Override
+    protected double calculate(int index) {
+        return shortEma.getValue(index) - longEma.getValue(index);
+    }
+
+}
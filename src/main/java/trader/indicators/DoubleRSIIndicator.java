@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+/**
+ * Relative strength index, the {@code double} counterpart of ta4j's
+ * {@link eu.verdelhan.ta4j.indicators.trackers.RSIIndicator RSIIndicator}.
+ *
+ * @author Joshua Kahn
+ */
+public class DoubleRSIIndicator extends DoubleIndicator {
+
+    private final DoubleIndicator indicator;
+
+    /**
+     * The number of periods of the average gains and losses.
+     */
+    private final int timeFrame;
+
+    public DoubleRSIIndicator(DoubleIndicator indicator, int timeFrame) {
+        super(indicator.getTimeSeries());
+        this.indicator = addInput(indicator);
+        this.timeFrame = timeFrame;
+    }
+
+    @Override
+    protected double calculate(int index) {
+        if (index == 0) {
+            return 0;
+        }
+        double gains = 0;
+        double losses = 0;
+        for (int i = Math.max(1, index - timeFrame + 1); i <= index; i++) {
+            double d = indicator.getValue(i) - indicator.getValue(i - 1);
+            if (d > 0) {
+                gains += d;
+            } else {
+                losses -= d;
+            }
+        }
+        if (losses == 0) {
+            return 100;
+        }
+        // The averages are over the same number of periods
+        return 100 - 100 / (1 + gains / losses);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " timeFrame: " + timeFrame;
+    }
+
+}
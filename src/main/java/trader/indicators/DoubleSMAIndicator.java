@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+/**
+ * Simple moving average, the {@code double} counterpart of ta4j's
+ * {@link eu.verdelhan.ta4j.indicators.trackers.SMAIndicator SMAIndicator}.
+ * <p/>
+ * The sum of the window is kept from one index to the next, so the cost of
+ * an index doesn't depend on the time frame.
+ *
+ * @author Joshua Kahn
+ */
+public class DoubleSMAIndicator extends DoubleIndicator {
+
+    private final DoubleIndicator indicator;
+
+    /**
+     * The number of periods to average.
+     */
+    private final int timeFrame;
+
+    /**
+     * The sum of the values of {@code indicator} in the current window.
+     */
+    private double sum;
+
+    public DoubleSMAIndicator(DoubleIndicator indicator, int timeFrame) {
+        super(indicator.getTimeSeries());
+        this.indicator = addInput(indicator);
+        this.timeFrame = timeFrame;
+    }
+
+    @Override
+    protected double calculate(int index) {
+        sum += indicator.getValue(index);
+        if (index >= timeFrame) {
+            sum -= indicator.getValue(index - timeFrame);
+        }
+        return sum / Math.min(timeFrame, index + 1);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " timeFrame: " + timeFrame;
+    }
+
+}
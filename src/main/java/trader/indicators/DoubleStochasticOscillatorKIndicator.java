@@ -0,0 +1,78 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.TimeSeries;
+
+/**
+ * Stochastic oscillator K, the {@code double} counterpart of ta4j's
+ * {@link eu.verdelhan.ta4j.indicators.oscillators.StochasticOscillatorKIndicator
+ * StochasticOscillatorKIndicator}: where the close price is in the range of
+ * the highest and lowest prices of the time frame, in percent.
+ *
+ * @author Joshua Kahn
+ */
+public class DoubleStochasticOscillatorKIndicator extends DoubleIndicator {
+
+    private final DoubleIndicator indicator;
+
+    /**
+     * The number of periods of the price range.
+     */
+    private final int timeFrame;
+
+    public DoubleStochasticOscillatorKIndicator(TimeSeries series, int
+            timeFrame) {
+        this(new DoubleClosePriceIndicator(series), timeFrame);
+    }
+
+    public DoubleStochasticOscillatorKIndicator(DoubleIndicator indicator,
+                                                int timeFrame) {
+        super(indicator.getTimeSeries());
+        this.indicator = addInput(indicator);
+        this.timeFrame = timeFrame;
+    }
+
+    @Override
+    protected double calculate(int index) {
+        TimeSeries series = getTimeSeries();
+        double highest = Double.NEGATIVE_INFINITY;
+        double lowest = Double.POSITIVE_INFINITY;
+        for (int i = Math.max(0, index - timeFrame + 1); i <= index; i++) {
+            highest = Math.max(highest, series.getTick(i).getMaxPrice()
+                    .toDouble());
+            lowest = Math.min(lowest, series.getTick(i).getMinPrice()
+                    .toDouble());
+        }
+        // A flat range has no position, like the Decimal division by zero
+        return highest == lowest ? Double.NaN : (indicator.getValue(index) -
+                lowest) * 100 / (highest - lowest);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " timeFrame: " + timeFrame;
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.Tick;
+
+/**
+ * Aroon up or down, updated tick by tick like {@link DoubleAroonIndicator}.
+ *
+ * @author Joshua Kahn
+ */
+public class IncrementalAroonIndicator extends IncrementalIndicator {
+
+    private final IncrementalIndicator closePrice;
+
+    /**
+     * The number of periods to look back.
+     */
+    private final int timeFrame;
+
+    /**
+     * True for Aroon up (the highest price), false for Aroon down.
+     */
+    private final boolean up;
+
+    private final MonotonicWindow extreme;
+
+    private double value;
+
+    /**
+     * @param closePrice the close price.
+     * @param timeFrame  the number of periods to look back.
+     * @param up         true for Aroon up, false for Aroon down.
+     */
+    public IncrementalAroonIndicator(IncrementalIndicator closePrice, int
+            timeFrame, boolean up) {
+        this.closePrice = closePrice;
+        this.timeFrame = timeFrame;
+        this.up = up;
+        this.extreme = new MonotonicWindow(timeFrame, up);
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    protected void update(Tick tick) {
+        closePrice.onTick(tick);
+        int index = getTickCount() - 1;
+        extreme.add(index, closePrice.getValue());
+        int ticksLookedAt = Math.min(timeFrame, index + 1);
+        value = (ticksLookedAt - (index - extreme.getIndex())) * 100.0 /
+                ticksLookedAt;
+    }
+
+    @Override
+    public String toString() {
+        return (up ? "AroonUp" : "AroonDown") + " timeFrame: " + timeFrame;
+    }
+
+}
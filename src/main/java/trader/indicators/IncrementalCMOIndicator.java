@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.Tick;
+
+/**
+ * Chande Momentum Oscillator, updated tick by tick like
+ * {@link DoubleCMOIndicator}.
+ *
+ * @author Joshua Kahn
+ */
+public class IncrementalCMOIndicator extends IncrementalIndicator {
+
+    private final IncrementalIndicator indicator;
+
+    /**
+     * The number of periods to run the indicator.
+     */
+    private final int timeFrame;
+
+    private final RollingSum gains;
+
+    private final RollingSum losses;
+
+    private double previous;
+
+    private double value;
+
+    public IncrementalCMOIndicator(IncrementalIndicator indicator, int
+            timeFrame) {
+        this.indicator = indicator;
+        this.timeFrame = timeFrame;
+        this.gains = new RollingSum(timeFrame);
+        this.losses = new RollingSum(timeFrame);
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    protected void update(Tick tick) {
+        indicator.onTick(tick);
+        double current = indicator.getValue();
+        // The first tick is its own previous tick
+        double d = getTickCount() == 1 ? 0 : current - previous;
+        gains.add(d >= 0 ? d : 0);
+        losses.add(d >= 0 ? 0 : -d);
+        double gain = gains.getSum();
+        double loss = losses.getSum();
+        value = gain + loss == 0 ? Double.NaN : (gain - loss) * 100 / (gain +
+                loss);
+        previous = current;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " timeFrame: " + timeFrame;
+    }
+
+}
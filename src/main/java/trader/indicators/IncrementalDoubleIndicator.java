@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.TimeSeries;
+
+import java.util.function.Supplier;
+
+/**
+ * A {@link DoubleIndicator} fed tick by tick to an
+ * {@link IncrementalIndicator}, so the rules built on double indicators can
+ * be evaluated on incremental ones: a double indicator computes each index
+ * once and in order, which is exactly the stream of ticks an incremental
+ * indicator expects.
+ * <p/>
+ * Each instance feeds its own chain of incremental indicators, built by the
+ * factory: a chain shared with another instance could be fed a tick ahead
+ * of this one.
+ *
+ * @author Joshua Kahn
+ */
+public class IncrementalDoubleIndicator extends DoubleIndicator {
+
+    private final Supplier<? extends IncrementalIndicator> factory;
+
+    private final IncrementalIndicator indicator;
+
+    /**
+     * @param series  the series to feed the indicator.
+     * @param factory builds the chain of incremental indicators.
+     */
+    public IncrementalDoubleIndicator(TimeSeries series, Supplier<? extends
+            IncrementalIndicator> factory) {
+        super(series);
+        this.factory = factory;
+        this.indicator = factory.get();
+    }
+
+    /**
+     * @return a new chain of the incremental indicators, e.g. as the input
+     * of another indicator.
+     */
+    public IncrementalIndicator newIndicator() {
+        return factory.get();
+    }
+
+    @Override
+    protected double calculate(int index) {
+        indicator.onTick(getTimeSeries().getTick(index));
+        return indicator.getValue();
+    }
+
+    @Override
+    public String toString() {
+        return indicator.toString();
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.Tick;
+
+/**
+ * Exponential moving average, updated tick by tick like
+ * {@link DoubleEMAIndicator}.
+ *
+ * @author Joshua Kahn
+ */
+public class IncrementalEMAIndicator extends IncrementalIndicator {
+
+    private final IncrementalIndicator indicator;
+
+    /**
+     * The number of periods of the average.
+     */
+    private final int timeFrame;
+
+    private final double multiplier;
+
+    /**
+     * The sum of the values before a whole time frame is available.
+     */
+    private double sum;
+
+    private double value;
+
+    public IncrementalEMAIndicator(IncrementalIndicator indicator, int
+            timeFrame) {
+        this.indicator = indicator;
+        this.timeFrame = timeFrame;
+        this.multiplier = 2.0 / (timeFrame + 1);
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    protected void update(Tick tick) {
+        indicator.onTick(tick);
+        double current = indicator.getValue();
+        int count = getTickCount();
+        if (count < timeFrame) {
+            // The simple moving average of the values so far
+            sum += current;
+            value = sum / count;
+        } else if (count == 1) {
+            value = current;
+        } else {
+            value = (current - value) * multiplier + value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " timeFrame: " + timeFrame;
+    }
+
+}
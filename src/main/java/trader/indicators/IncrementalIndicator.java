@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.Tick;
+
+/**
+ * An indicator updated tick by tick, in constant time, for live trading:
+ * only the state needed for the next tick is kept, so the cost of a tick
+ * doesn't depend on the time frame.
+ * <p/>
+ * An indicator updates its inputs before itself, and a tick is only applied
+ * once, so an input can be shared by several indicators.
+ *
+ * @author Joshua Kahn
+ */
+public abstract class IncrementalIndicator {
+
+    /**
+     * The last tick applied.
+     */
+    private Tick lastTick;
+
+    /**
+     * The number of ticks applied.
+     */
+    private int tickCount;
+
+    /**
+     * Update the indicator with a new tick, once per tick.
+     *
+     * @param tick the tick following the last one applied.
+     */
+    public void onTick(Tick tick) {
+        if (tick == lastTick) {
+            return;
+        }
+        lastTick = tick;
+        tickCount++;
+        update(tick);
+    }
+
+    /**
+     * @return the value of the indicator at the last tick.
+     */
+    public abstract double getValue();
+
+    /**
+     * @return the number of ticks applied.
+     */
+    public int getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Update the value of the indicator, {@link #getTickCount()} already
+     * counts the new tick.
+     *
+     * @param tick the new tick.
+     */
+    protected abstract void update(Tick tick);
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.Tick;
+
+/**
+ * Moving average convergence divergence, updated tick by tick like
+ * {@link DoubleMACDIndicator}.
+ *
+ * @author Joshua Kahn
+ */
+public class IncrementalMACDIndicator extends IncrementalIndicator {
+
+    private final IncrementalEMAIndicator shortEma;
+
+    private final IncrementalEMAIndicator longEma;
+
+    public IncrementalMACDIndicator(IncrementalIndicator indicator, int
+            shortTimeFrame, int longTimeFrame) {
+        if (shortTimeFrame > longTimeFrame) {
+            throw new IllegalArgumentException("Long term period count must " +
+                    "be greater than short term period count");
+        }
+        this.shortEma = new IncrementalEMAIndicator(indicator, shortTimeFrame);
+        this.longEma = new IncrementalEMAIndicator(indicator, longTimeFrame);
+    }
+
+    @Override
+    public double getValue() {
+        return shortEma.getValue() - longEma.getValue();
+    }
+
+    @Override
+    protected void update(Tick tick) {
+        shortEma.onTick(tick);
+        longEma.onTick(tick);
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.Tick;
+
+/**
+ * Relative strength index, updated tick by tick like
+ * {@link DoubleRSIIndicator}.
+ *
+ * @author Joshua Kahn
+ */
+public class IncrementalRSIIndicator extends IncrementalIndicator {
+
+    private final IncrementalIndicator indicator;
+
+    /**
+     * The number of periods of the average gains and losses.
+     */
+    private final int timeFrame;
+
+    private final RollingSum gains;
+
+    private final RollingSum losses;
+
+    private double previous;
+
+    private double value;
+
+    public IncrementalRSIIndicator(IncrementalIndicator indicator, int
+            timeFrame) {
+        this.indicator = indicator;
+        this.timeFrame = timeFrame;
+        this.gains = new RollingSum(timeFrame);
+        this.losses = new RollingSum(timeFrame);
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    protected void update(Tick tick) {
+        indicator.onTick(tick);
+        double current = indicator.getValue();
+        if (getTickCount() == 1) {
+            value = 0;
+        } else {
+            double d = current - previous;
+            gains.add(d > 0 ? d : 0);
+            losses.add(d > 0 ? 0 : -d);
+            double loss = losses.getSum();
+            value = loss == 0 ? 100 : 100 - 100 / (1 + gains.getSum() / loss);
+        }
+        previous = current;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " timeFrame: " + timeFrame;
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.Tick;
+
+/**
+ * Stochastic oscillator K, updated tick by tick like
+ * {@link DoubleStochasticOscillatorKIndicator}.
+ *
+ * @author Joshua Kahn
+ */
+public class IncrementalStochasticOscillatorKIndicator extends
+        IncrementalIndicator {
+
+    /**
+     * The number of periods of the price range.
+     */
+    private final int timeFrame;
+
+    private final MonotonicWindow highest;
+
+    private final MonotonicWindow lowest;
+
+    private double value;
+
+    public IncrementalStochasticOscillatorKIndicator(int timeFrame) {
+        this.timeFrame = timeFrame;
+        this.highest = new MonotonicWindow(timeFrame, true);
+        this.lowest = new MonotonicWindow(timeFrame, false);
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    protected void update(Tick tick) {
+        int index = getTickCount() - 1;
+        highest.add(index, tick.getMaxPrice().toDouble());
+        lowest.add(index, tick.getMinPrice().toDouble());
+        double high = highest.getValue();
+        double low = lowest.getValue();
+        value = high == low ? Double.NaN : (tick.getClosePrice().toDouble() -
+                low) * 100 / (high - low);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " timeFrame: " + timeFrame;
+    }
+
+}
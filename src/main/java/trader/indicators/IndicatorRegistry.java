@@ -0,0 +1,301 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+import eu.verdelhan.ta4j.Decimal;
+import eu.verdelhan.ta4j.Indicator;
+import eu.verdelhan.ta4j.TimeSeries;
+import eu.verdelhan.ta4j.indicators.oscillators.AroonDownIndicator;
+import eu.verdelhan.ta4j.indicators.oscillators.AroonUpIndicator;
+import eu.verdelhan.ta4j.indicators.oscillators.StochasticOscillatorKIndicator;
+import eu.verdelhan.ta4j.indicators.simple.ClosePriceIndicator;
+import eu.verdelhan.ta4j.indicators.simple.PreviousPriceIndicator;
+import eu.verdelhan.ta4j.indicators.trackers.EMAIndicator;
+import eu.verdelhan.ta4j.indicators.trackers.MACDIndicator;
+import eu.verdelhan.ta4j.indicators.trackers.RSIIndicator;
+import eu.verdelhan.ta4j.indicators.trackers.SMAIndicator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The indicators of a {@link TimeSeries}, keyed by their type and
+ * parameters, so that strategies built on the same series share a single
+ * instance (and a single cache) of each distinct indicator.
+ * <p/>
+ * An indicator used as a parameter of another is part of its key: building
+ * the inputs through the registry too is what lets whole chains of
+ * indicators be shared.
+ * <p/>
+ * An incremental registry builds its double indicators on
+ * {@link IncrementalIndicator IncrementalIndicators}, for live trading: each
+ * new tick then costs a constant time whatever the time frames.
+ *
+ * @author Joshua Kahn
+ */
+public class IndicatorRegistry {
+
+    private final TimeSeries series;
+
+    /**
+     * Whether the double indicators are built on incremental indicators.
+     */
+    private final boolean incremental;
+
+    private final Map<List<Object>, Object> indicators = new HashMap<>();
+
+    public IndicatorRegistry(TimeSeries series) {
+        this(series, false);
+    }
+
+    /**
+     * @param series      the series to compute the indicators on.
+     * @param incremental true to build the double indicators on incremental
+     *                    indicators.
+     */
+    public IndicatorRegistry(TimeSeries series, boolean incremental) {
+        if (series == null) {
+            throw new IllegalArgumentException("Series cannot be null");
+        }
+        this.series = series;
+        this.incremental = incremental;
+    }
+
+    /**
+     * Get the indicator of a type built with some parameters, building it
+     * the first time it is requested.
+     *
+     * @param type       the type of the indicator.
+     * @param factory    builds the indicator from {@code parameters}.
+     * @param parameters every parameter the indicator is built with.
+     * @return the shared indicator.
+     */
+    public synchronized <T> T get(Class<T> type, Supplier<? extends T>
+            factory, Object... parameters) {
+        List<Object> key = new ArrayList<>(parameters.length + 1);
+        key.add(type);
+        key.addAll(Arrays.asList(parameters));
+        Object indicator = indicators.get(key);
+        if (indicator == null) {
+            // The factory may build its inputs through the registry
+            indicator = factory.get();
+            indicators.put(key, indicator);
+        }
+        return type.cast(indicator);
+    }
+
+    /**
+     * @return the number of distinct indicators built.
+     */
+    public synchronized int size() {
+        return indicators.size();
+    }
+
+    /**
+     * @return the series the indicators are computed on.
+     */
+    public TimeSeries getTimeSeries() {
+        return series;
+    }
+
+    public ClosePriceIndicator closePrice() {
+        return get(ClosePriceIndicator.class, () -> new ClosePriceIndicator
+                (series));
+    }
+
+    public PreviousPriceIndicator previousPrice() {
+        return get(PreviousPriceIndicator.class, () -> new
+                PreviousPriceIndicator(series));
+    }
+
+    public SMAIndicator sma(int timeFrame) {
+        return get(SMAIndicator.class, () -> new SMAIndicator(closePrice(),
+                timeFrame), timeFrame);
+    }
+
+    public EMAIndicator ema(Indicator<Decimal> indicator, int timeFrame) {
+        return get(EMAIndicator.class, () -> new EMAIndicator(indicator,
+                timeFrame), indicator, timeFrame);
+    }
+
+    public MACDIndicator macd(int shortTimeFrame, int longTimeFrame) {
+        return get(MACDIndicator.class, () -> new MACDIndicator(closePrice(),
+                shortTimeFrame, longTimeFrame), shortTimeFrame, longTimeFrame);
+    }
+
+    public StochasticOscillatorKIndicator stochasticOscillatorK(
+            int timeFrame) {
+        return get(StochasticOscillatorKIndicator.class, () -> new
+                StochasticOscillatorKIndicator(series, timeFrame), timeFrame);
+    }
+
+    public CMOIndicator cmo(int timeFrame) {
+        return get(CMOIndicator.class, () -> new CMOIndicator(closePrice(),
+                timeFrame, previousPrice()), timeFrame);
+    }
+
+    public RSIIndicator rsi(int timeFrame) {
+        return get(RSIIndicator.class, () -> new RSIIndicator(closePrice(),
+                timeFrame), timeFrame);
+    }
+
+    public AroonUpIndicator aroonUp(int timeFrame) {
+        return get(AroonUpIndicator.class, () -> new AroonUpIndicator(series,
+                timeFrame), timeFrame);
+    }
+
+    public AroonDownIndicator aroonDown(int timeFrame) {
+        return get(AroonDownIndicator.class, () -> new AroonDownIndicator
+                (series, timeFrame), timeFrame);
+    }
+
+    public DoubleIndicator doubleClosePrice() {
+        if (incremental) {
+            return incremental(IncrementalClosePriceIndicator::new,
+                    IncrementalClosePriceIndicator.class);
+        }
+        return get(DoubleClosePriceIndicator.class, () -> new
+                DoubleClosePriceIndicator(series));
+    }
+
+    public DoubleIndicator doubleSma(int timeFrame) {
+        if (incremental) {
+            IncrementalDoubleIndicator closePrice = input(doubleClosePrice());
+            return incremental(() -> new IncrementalSMAIndicator(closePrice
+                    .newIndicator(), timeFrame), IncrementalSMAIndicator.class,
+                    timeFrame);
+        }
+        return get(DoubleSMAIndicator.class, () -> new DoubleSMAIndicator
+                (doubleClosePrice(), timeFrame), timeFrame);
+    }
+
+    public DoubleIndicator doubleEma(DoubleIndicator indicator, int
+            timeFrame) {
+        if (incremental) {
+            IncrementalDoubleIndicator input = input(indicator);
+            return incremental(() -> new IncrementalEMAIndicator(input
+                    .newIndicator(), timeFrame), IncrementalEMAIndicator.class,
+                    indicator, timeFrame);
+        }
+        return get(DoubleEMAIndicator.class, () -> new DoubleEMAIndicator
+                (indicator, timeFrame), indicator, timeFrame);
+    }
+
+    public DoubleIndicator doubleMacd(int shortTimeFrame, int
+            longTimeFrame) {
+        if (incremental) {
+            IncrementalDoubleIndicator closePrice = input(doubleClosePrice());
+            return incremental(() -> new IncrementalMACDIndicator(closePrice
+                    .newIndicator(), shortTimeFrame, longTimeFrame),
+                    IncrementalMACDIndicator.class, shortTimeFrame,
+                    longTimeFrame);
+        }
+        return get(DoubleMACDIndicator.class, () -> new DoubleMACDIndicator
+                (doubleClosePrice(), shortTimeFrame, longTimeFrame),
+                shortTimeFrame, longTimeFrame);
+    }
+
+    public DoubleIndicator doubleStochasticOscillatorK(int timeFrame) {
+        if (incremental) {
+            return incremental(() -> new
+                    IncrementalStochasticOscillatorKIndicator(timeFrame),
+                    IncrementalStochasticOscillatorKIndicator.class,
+                    timeFrame);
+        }
+        return get(DoubleStochasticOscillatorKIndicator.class, () -> new
+                DoubleStochasticOscillatorKIndicator(doubleClosePrice(),
+                timeFrame), timeFrame);
+    }
+
+    public DoubleIndicator doubleCmo(int timeFrame) {
+        if (incremental) {
+            IncrementalDoubleIndicator closePrice = input(doubleClosePrice());
+            return incremental(() -> new IncrementalCMOIndicator(closePrice
+                    .newIndicator(), timeFrame), IncrementalCMOIndicator.class,
+                    timeFrame);
+        }
+        return get(DoubleCMOIndicator.class, () -> new DoubleCMOIndicator
+                (doubleClosePrice(), timeFrame), timeFrame);
+    }
+
+    public DoubleIndicator doubleRsi(int timeFrame) {
+        if (incremental) {
+            IncrementalDoubleIndicator closePrice = input(doubleClosePrice());
+            return incremental(() -> new IncrementalRSIIndicator(closePrice
+                    .newIndicator(), timeFrame), IncrementalRSIIndicator.class,
+                    timeFrame);
+        }
+        return get(DoubleRSIIndicator.class, () -> new DoubleRSIIndicator
+                (doubleClosePrice(), timeFrame), timeFrame);
+    }
+
+    /**
+     * @param timeFrame the number of periods to look back.
+     * @param up        true for Aroon up, false for Aroon down.
+     * @return the Aroon indicator.
+     */
+    public DoubleIndicator doubleAroon(int timeFrame, boolean up) {
+        if (incremental) {
+            IncrementalDoubleIndicator closePrice = input(doubleClosePrice());
+            return incremental(() -> new IncrementalAroonIndicator(closePrice
+                    .newIndicator(), timeFrame, up), IncrementalAroonIndicator
+                    .class, timeFrame, up);
+        }
+        return get(DoubleAroonIndicator.class, () -> new DoubleAroonIndicator
+                (doubleClosePrice(), timeFrame, up), timeFrame, up);
+    }
+
+    /**
+     * Get the double indicator fed to an incremental indicator.
+     *
+     * @param factory    builds the chain of incremental indicators.
+     * @param parameters every parameter the indicator is built with,
+     *                   starting with its type.
+     * @return the shared indicator.
+     */
+    private DoubleIndicator incremental(Supplier<? extends
+            IncrementalIndicator> factory, Object... parameters) {
+        return get(IncrementalDoubleIndicator.class, () -> new
+                IncrementalDoubleIndicator(series, factory), parameters);
+    }
+
+    /**
+     * @param indicator a double indicator of an incremental registry.
+     * @return the indicator, to build new chains of its incremental
+     * indicators from.
+     */
+    private static IncrementalDoubleIndicator input(DoubleIndicator
+                                                            indicator) {
+        if (!(indicator instanceof IncrementalDoubleIndicator)) {
+            throw new IllegalArgumentException("Incremental indicators can " +
+                    "only be built on incremental indicators");
+        }
+        return (IncrementalDoubleIndicator) indicator;
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+/**
+ * The highest (or lowest) of the last values of a stream, updated in
+ * amortized constant time: only the values that can still become the
+ * extreme of a later window are kept, in a deque of decreasing (or
+ * increasing) values.
+ *
+ * @author Joshua Kahn
+ */
+class MonotonicWindow {
+
+    private final int length;
+
+    /**
+     * True to track the highest value, false for the lowest.
+     */
+    private final boolean highest;
+
+    private final int[] indices;
+
+    private final double[] values;
+
+    /**
+     * The position of the front of the deque in the arrays.
+     */
+    private int head;
+
+    private int size;
+
+    /**
+     * @param length  the number of values of the window.
+     * @param highest true to track the highest value, false for the lowest.
+     */
+    MonotonicWindow(int length, boolean highest) {
+        this.length = length;
+        this.highest = highest;
+        this.indices = new int[length];
+        this.values = new double[length];
+    }
+
+    /**
+     * Add the next value, the window then ends at {@code index}.
+     *
+     * @param index the index of the value, one more than the previous one.
+     * @param value the value.
+     */
+    void add(int index, double value) {
+        // A value equal to the new one won't be the most recent extreme
+        while (size > 0) {
+            double back = values[(head + size - 1) % length];
+            if (highest ? back > value : back < value) {
+                break;
+            }
+            size--;
+        }
+        if (size > 0 && indices[head] <= index - length) {
+            head = (head + 1) % length;
+            size--;
+        }
+        int back = (head + size) % length;
+        indices[back] = index;
+        values[back] = value;
+        size++;
+    }
+
+    /**
+     * @return the extreme value of the window.
+     */
+    double getValue() {
+        return values[head];
+    }
+
+    /**
+     * @return the index of the most recent occurrence of the extreme value.
+     */
+    int getIndex() {
+        return indices[head];
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.indicators;
+
+/**
+ * The sum of the last values of a stream, updated in constant time.
+ * <p/>
+ * The sum is computed again from the window every time the whole window has
+ * been replaced, so the rounding errors of the running sum don't pile up,
+ * and a window of zeros always sums to exactly zero.
+ *
+ * @author Joshua Kahn
+ */
+class RollingSum {
+
+    private final double[] window;
+
+    /**
+     * The position of the next value in {@code window}, the oldest value
+     * once it is full.
+     */
+    private int position;
+
+    private int size;
+
+    private double sum;
+
+    /**
+     * The number of values in the window that aren't zero.
+     */
+    private int nonZero;
+
+    /**
+     * The number of values added since the sum was last computed again.
+     */
+    private int added;
+
+    /**
+     * @param length the number of values to sum.
+     */
+    RollingSum(int length) {
+        this.window = new double[length];
+    }
+
+    /**
+     * Add a value, dropping the oldest one if the window is full.
+     *
+     * @param value the new value.
+     */
+    void add(double value) {
+        if (size == window.length) {
+            double oldest = window[position];
+            sum -= oldest;
+            if (oldest != 0) {
+                nonZero--;
+            }
+        } else {
+            size++;
+        }
+        window[position] = value;
+        sum += value;
+        if (value != 0) {
+            nonZero++;
+        }
+        position = (position + 1) % window.length;
+
+        if (++added == window.length) {
+            added = 0;
+            sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += window[(position - size + i + window.length) % window
+                        .length];
+            }
+        }
+    }
+
+    /**
+     * @return the sum of the values in the window.
+     */
+    double getSum() {
+        return nonZero == 0 ? 0 : sum;
+    }
+
+    /**
+     * @return the number of values in the window.
+     */
+    int size() {
+        return size;
+    }
+
+}
@@ -35,7 +35,8 @@ import eu.verdelhan.ta4j.indicators.trackers.SMAIndicator;
 import eu.verdelhan.ta4j.trading.rules.*;
 import org.jetbrains.annotations.Contract;
 import org.jooq.lambda.tuple.Tuple2;
-import trader.indicators.CMOIndicator;
+import trader.indicators.*;
+import trader.strategies.rules.*;
 
 /**
  * Created by jkahn on 12/22/15.
@@ -99,7 +100,34 @@ public class BasicStrategy extends Strategy {
     private static final int STOP_GAIN_THRESHOLD = 10;
 
     public BasicStrategy(TimeSeries series) {
-        this(buildStrategy(series));
+        this(series, false);
+    }
+
+    /**
+     * @param series     the series to trade on.
+     * @param useDoubles true to compute the indicators with {@code double}
+     *                   values instead of {@link Decimal}, e.g. for backtests
+     *                   or to only cache the values of the ticks kept.
+     */
+    public BasicStrategy(TimeSeries series, boolean useDoubles) {
+        this(series == null ? null : new IndicatorRegistry(series),
+                useDoubles);
+    }
+
+    /**
+     * @param registry   the indicators of the series to trade on, shared with
+     *                   the other strategies built on it.
+     * @param useDoubles true to compute the indicators with {@code double}
+     *                   values instead of {@link Decimal}, e.g. for backtests.
+     */
+    public BasicStrategy(IndicatorRegistry registry, boolean useDoubles) {
+        this(new Builder(), registry, useDoubles);
+    }
+
+    private BasicStrategy(Builder parameters, IndicatorRegistry registry,
+                          boolean useDoubles) {
+        this(useDoubles ? buildDoubleStrategy(registry, parameters) :
+                buildStrategy(registry, parameters));
     }
 
     private BasicStrategy(Tuple2<Rule, Rule> rules) {
@@ -110,40 +138,43 @@ public class BasicStrategy extends Strategy {
      * Build the {@link eu.verdelhan.ta4j.Strategy Strategy} to use for
      * trading and backtesting.
      *
-     * @param series
-     * {@link eu.verdelhan.ta4j.TimeSeries TimeSeries} to use when building the {@link eu.verdelhan.ta4j.Strategy Strategy}
+     * @param registry
+     * {@link IndicatorRegistry IndicatorRegistry} of the series to use when building the {@link eu.verdelhan.ta4j.Strategy Strategy}
+     * @param parameters the periods and thresholds of the strategy.
      * @return the rules to build the
      * {@link eu.verdelhan.ta4j.Strategy Strategy}.
      */
-    @Contract("null -> fail")
-    private static Tuple2<Rule, Rule> buildStrategy(TimeSeries series) {
-        if (series == null) {
+    @Contract("null, _ -> fail")
+    private static Tuple2<Rule, Rule> buildStrategy(IndicatorRegistry
+                                                            registry,
+                                                    Builder parameters) {
+        if (registry == null) {
             throw new IllegalArgumentException("Series cannot be null");
         }
 
-        ClosePriceIndicator closePrice = new ClosePriceIndicator(series);
+        ClosePriceIndicator closePrice = registry.closePrice();
 
-        SMAIndicator shortSma = new SMAIndicator(closePrice, SMA_SHORT_PERIODS);
-        SMAIndicator longSma = new SMAIndicator(closePrice, SMA_LONG_PERIODS);
+        SMAIndicator shortSma = registry.sma(parameters.smaShortPeriods);
+        SMAIndicator longSma = registry.sma(parameters.smaLongPeriods);
 
-        CMOIndicator cmo = new CMOIndicator(series, CMO_PERIODS);
+        CMOIndicator cmo = registry.cmo(parameters.cmoPeriods);
 
         // The bias is bearish when the shorter-moving averagemoves below the
         // longer moving average.
-        EMAIndicator shortEma = new EMAIndicator(closePrice, 9);
-        EMAIndicator longEma = new EMAIndicator(closePrice, 26);
+        EMAIndicator shortEma = registry.ema(closePrice, 9);
+        EMAIndicator longEma = registry.ema(closePrice, 26);
 
-        StochasticOscillatorKIndicator stochasticOscillK = new
-                StochasticOscillatorKIndicator(series, 14);
+        StochasticOscillatorKIndicator stochasticOscillK = registry
+                .stochasticOscillatorK(14);
 
-        MACDIndicator macd = new MACDIndicator(closePrice, MACD_SHORT_PERIODS,
-                MACD_LONG_PERIODS);
-        EMAIndicator emaMacd = new EMAIndicator(macd, 18);
+        MACDIndicator macd = registry.macd(parameters.macdShortPeriods,
+                parameters.macdLongPeriods);
+        EMAIndicator emaMacd = registry.ema(macd, 18);
 
         Rule momentumEntry = new OverIndicatorRule(shortSma, longSma) // Trend
                 // Signal 1
                 .and(new CrossedDownIndicatorRule(cmo,
-                        Decimal.valueOf(CMO_LOWER)))
+                        Decimal.valueOf(parameters.cmoLower)))
                 // Signal 2
                 .and(new OverIndicatorRule(shortEma, closePrice));
 
@@ -159,7 +190,7 @@ public class BasicStrategy extends Strategy {
         Rule momentumExit = new UnderIndicatorRule(shortSma, longSma) // Trend
                 // Signal 1
                 .and(new CrossedUpIndicatorRule(cmo,
-                        Decimal.valueOf(CMO_UPPER)))
+                        Decimal.valueOf(parameters.cmoUpper)))
                 // Signal 2
                 .and(new UnderIndicatorRule(shortSma, closePrice));
 
@@ -173,12 +204,189 @@ public class BasicStrategy extends Strategy {
                 .or(momentumExit)
                 // Protect against severe losses
                 .or(new StopLossRule(closePrice, Decimal.valueOf
-                        (STOP_LOSS_THRESHOLD)))
+                        (parameters.stopLossThreshold)))
                 // Take profits and run
                 .or(new StopGainRule(closePrice, Decimal.valueOf
-                        (STOP_GAIN_THRESHOLD)));
+                        (parameters.stopGainThreshold)));
 
         return new Tuple2<>(entryRule, exitRule);
     }
 
+    /**
+     * Build the same rules as
+     * {@link #buildStrategy(IndicatorRegistry, Builder)} on
+     * {@link DoubleIndicator DoubleIndicators}.
+     *
+     * @param registry
+     * {@link IndicatorRegistry IndicatorRegistry} of the series to use when building the {@link eu.verdelhan.ta4j.Strategy Strategy}
+     * @param parameters the periods and thresholds of the strategy.
+     * @return the rules to build the
+     * {@link eu.verdelhan.ta4j.Strategy Strategy}.
+     */
+    @Contract("null, _ -> fail")
+    private static Tuple2<Rule, Rule> buildDoubleStrategy(IndicatorRegistry
+                                                                  registry,
+                                                          Builder parameters) {
+        if (registry == null) {
+            throw new IllegalArgumentException("Series cannot be null");
+        }
+
+        DoubleIndicator closePrice = registry.doubleClosePrice();
+
+        DoubleIndicator shortSma = registry.doubleSma(parameters
+                .smaShortPeriods);
+        DoubleIndicator longSma = registry.doubleSma(parameters
+                .smaLongPeriods);
+
+        DoubleIndicator cmo = registry.doubleCmo(parameters.cmoPeriods);
+
+        DoubleIndicator shortEma = registry.doubleEma(closePrice, 9);
+        DoubleIndicator longEma = registry.doubleEma(closePrice, 26);
+
+        DoubleIndicator stochasticOscillK = registry
+                .doubleStochasticOscillatorK(14);
+
+        DoubleIndicator macd = registry.doubleMacd(parameters
+                .macdShortPeriods, parameters.macdLongPeriods);
+        DoubleIndicator emaMacd = registry.doubleEma(macd, 18);
+
+        // Every index is evaluated, computing the indicators one at a time
+        // over the whole series
+        DoubleIndicator.precompute(shortSma, longSma, cmo, shortEma, longEma,
+                stochasticOscillK, macd, emaMacd);
+
+        // The rules are flattened into one plan, each condition being
+        // evaluated at most once per index
+        RulePlan plan = new RulePlan();
+
+        Rule entryRule = plan.anyOf(
+                plan.allOf(new DoubleOverIndicatorRule(shortEma, longEma),
+                        new DoubleCrossedDownIndicatorRule(stochasticOscillK,
+                                20),
+                        new DoubleOverIndicatorRule(macd, emaMacd)),
+                plan.allOf(new DoubleOverIndicatorRule(shortSma, longSma),
+                        new DoubleCrossedDownIndicatorRule(cmo, parameters
+                                .cmoLower),
+                        new DoubleOverIndicatorRule(shortEma, closePrice)));
+
+        Rule exitRule = plan.anyOf(
+                plan.allOf(new DoubleUnderIndicatorRule(shortEma, longEma),
+                        new DoubleCrossedUpIndicatorRule(stochasticOscillK,
+                                80),
+                        new DoubleUnderIndicatorRule(macd, emaMacd)),
+                plan.allOf(new DoubleUnderIndicatorRule(shortSma, longSma),
+                        new DoubleCrossedUpIndicatorRule(cmo, parameters
+                                .cmoUpper),
+                        new DoubleUnderIndicatorRule(shortSma, closePrice)),
+                plan.allOf(plan.onTrade(new DoubleStopLossRule(closePrice,
+                        parameters.stopLossThreshold))),
+                plan.allOf(plan.onTrade(new DoubleStopGainRule(closePrice,
+                        parameters.stopGainThreshold))));
+
+        return new Tuple2<>(entryRule, exitRule);
+    }
+
+    /**
+     * Builds a {@link BasicStrategy} with other periods and thresholds, e.g.
+     * to search for the best ones. The defaults are those of the strategy.
+     */
+    public static class Builder {
+
+        private int cmoPeriods = CMO_PERIODS;
+        private int cmoUpper = CMO_UPPER;
+        private int cmoLower = CMO_LOWER;
+        private int macdShortPeriods = MACD_SHORT_PERIODS;
+        private int macdLongPeriods = MACD_LONG_PERIODS;
+        private int smaShortPeriods = SMA_SHORT_PERIODS;
+        private int smaLongPeriods = SMA_LONG_PERIODS;
+        private int stopLossThreshold = STOP_LOSS_THRESHOLD;
+        private int stopGainThreshold = STOP_GAIN_THRESHOLD;
+
+        /**
+         * @param periods the number of periods of the Chande Momentum
+         *                Oscillator.
+         * @return this builder.
+         */
+        public Builder cmoPeriods(int periods) {
+            this.cmoPeriods = periods;
+            return this;
+        }
+
+        /**
+         * @param lower the lower bound of the Chande Momentum Oscillator.
+         * @param upper the upper bound of the Chande Momentum Oscillator.
+         * @return this builder.
+         */
+        public Builder cmoBounds(int lower, int upper) {
+            this.cmoLower = lower;
+            this.cmoUpper = upper;
+            return this;
+        }
+
+        /**
+         * @param shortPeriods the number of periods of the short running
+         *                     part of the MACD.
+         * @param longPeriods  the number of periods of the long running
+         *                     part of the MACD.
+         * @return this builder.
+         */
+        public Builder macdPeriods(int shortPeriods, int longPeriods) {
+            this.macdShortPeriods = shortPeriods;
+            this.macdLongPeriods = longPeriods;
+            return this;
+        }
+
+        /**
+         * @param shortPeriods the number of periods of the short running SMA.
+         * @param longPeriods  the number of periods of the long running SMA.
+         * @return this builder.
+         */
+        public Builder smaPeriods(int shortPeriods, int longPeriods) {
+            this.smaShortPeriods = shortPeriods;
+            this.smaLongPeriods = longPeriods;
+            return this;
+        }
+
+        /**
+         * @param threshold the maximum loss (in percent) of a trade.
+         * @return this builder.
+         */
+        public Builder stopLossThreshold(int threshold) {
+            this.stopLossThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * @param threshold the maximum gain (in percent) of a trade.
+         * @return this builder.
+         */
+        public Builder stopGainThreshold(int threshold) {
+            this.stopGainThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * @param registry   the indicators of the series to trade on, shared
+         *                   with the other strategies built on it.
+         * @param useDoubles true to compute the indicators with
+         *                   {@code double} values instead of
+         *                   {@link Decimal}.
+         * @return the strategy.
+         */
+        public BasicStrategy build(IndicatorRegistry registry, boolean
+                useDoubles) {
+            return new BasicStrategy(this, registry, useDoubles);
+        }
+
+        @Override
+        public String toString() {
+            return "CMO: " + cmoPeriods + " [" + cmoLower + ", " + cmoUpper +
+                    "], MACD: " + macdShortPeriods + "/" + macdLongPeriods +
+                    ", SMA: " + smaShortPeriods + "/" + smaLongPeriods +
+                    ", stop loss: " + stopLossThreshold + "%, stop gain: " +
+                    stopGainThreshold + "%";
+        }
+
+    }
+
 }
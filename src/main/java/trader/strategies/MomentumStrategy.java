@@ -34,7 +34,8 @@ import eu.verdelhan.ta4j.indicators.trackers.RSIIndicator;
 import eu.verdelhan.ta4j.trading.rules.*;
 import org.jetbrains.annotations.Contract;
 import org.jooq.lambda.tuple.Tuple2;
-import trader.indicators.CMOIndicator;
+import trader.indicators.*;
+import trader.strategies.rules.*;
 
 /**
  * Created by Joshua Kahn on 1/7/2016.
@@ -43,9 +44,60 @@ import trader.indicators.CMOIndicator;
  */
 public class MomentumStrategy extends Strategy {
 
+    /**
+     * The number of periods to use for the Aroon indicators.
+     */
+    private static final int AROON_PERIODS = 25;
+
+    /**
+     * The number of periods to use for the Relative Strength Index.
+     */
+    private static final int RSI_PERIODS = 14;
+
+    /**
+     * The lower bound to use for the Relative Strength Index.
+     */
+    private static final int RSI_LOWER = 30;
+
+    /**
+     * The upper bound to use for the Relative Strength Index.
+     */
+    private static final int RSI_UPPER = 70;
+
+    /**
+     * The threshold (in percent) for the maximum loss allowed on a given
+     * trade.
+     */
+    private static final int STOP_LOSS_THRESHOLD = 15;
 
     public MomentumStrategy(TimeSeries series) {
-        this(buildStrategy(series));
+        this(series, false);
+    }
+
+    /**
+     * @param series     the series to trade on.
+     * @param useDoubles true to compute the indicators with {@code double}
+     *                   values instead of {@link Decimal}, e.g. for backtests.
+     */
+    public MomentumStrategy(TimeSeries series, boolean useDoubles) {
+        this(series == null ? null : new IndicatorRegistry(series),
+                useDoubles);
+    }
+
+    /**
+     * @param registry   the indicators of the series to trade on, shared with
+     *                   the other strategies built on it.
+     * @param useDoubles true to compute the indicators with {@code double}
+     *                   values instead of {@link Decimal}, e.g. for backtests.
+     */
+    public MomentumStrategy(IndicatorRegistry registry, boolean useDoubles) {
+        this(new Builder(), registry, useDoubles);
+    }
+
+    private MomentumStrategy(Builder parameters, IndicatorRegistry registry,
+                             boolean useDoubles) {
+        this(useDoubles ? buildDoubleStrategy(registry, parameters) :
+                buildStrategy(registry, parameters));
     }
 
     private MomentumStrategy(Tuple2<Rule, Rule> rules) {
@@ -56,41 +108,171 @@ public class MomentumStrategy extends Strategy {
      * Build the {@link eu.verdelhan.ta4j.Strategy Strategy} to use for
      * trading and backtesting.
      *
-     * @param series
-     * {@link eu.verdelhan.ta4j.TimeSeries TimeSeries} to use when building the {@link eu.verdelhan.ta4j.Strategy Strategy}
+     * @param registry
+     * {@link IndicatorRegistry IndicatorRegistry} of the series to use when building the {@link eu.verdelhan.ta4j.Strategy Strategy}
+     * @param parameters the periods and thresholds of the strategy.
      * @return the rules to build the
      * {@link eu.verdelhan.ta4j.Strategy Strategy}.
      */
-    @Contract("null -> fail")
-    private static Tuple2<Rule, Rule> buildStrategy(TimeSeries series) {
-        if (series == null) {
+    @Contract("null, _ -> fail")
+    private static Tuple2<Rule, Rule> buildStrategy(IndicatorRegistry
+                                                            registry,
+                                                    Builder parameters) {
+        if (registry == null) {
             throw new IllegalArgumentException("Series cannot be null");
         }
 
-        ClosePriceIndicator closePrice = new ClosePriceIndicator(series);
+        ClosePriceIndicator closePrice = registry.closePrice();
 
         // Chande Moving Oscillator
-        CMOIndicator cmoIndicator = new CMOIndicator(series, 14);
+        CMOIndicator cmoIndicator = registry.cmo(14);
 
         // Aroon indicators
-        AroonUpIndicator aroonUpIndicator = new AroonUpIndicator(series, 25);
-        AroonDownIndicator aroonDownIndicator = new AroonDownIndicator
-                (series, 25);
+        AroonUpIndicator aroonUpIndicator = registry.aroonUp(parameters
+                .aroonPeriods);
+        AroonDownIndicator aroonDownIndicator = registry.aroonDown(parameters
+                .aroonPeriods);
 
-        RSIIndicator rsi = new RSIIndicator(closePrice, 14);
+        RSIIndicator rsi = registry.rsi(parameters.rsiPeriods);
 
         Rule entryRule = new OverIndicatorRule(aroonUpIndicator,
                 aroonDownIndicator).and(new CrossedUpIndicatorRule(rsi,
-                Decimal.valueOf(30)));
+                Decimal.valueOf(parameters.rsiLower)));
 
         // Protect assets on loss
-        Rule stopLoss = new StopLossRule(closePrice, Decimal.valueOf(15));
+        Rule stopLoss = new StopLossRule(closePrice, Decimal.valueOf
+                (parameters.stopLossThreshold));
 
         Rule exitRule = new AndRule(new OverIndicatorRule(aroonDownIndicator,
                 aroonUpIndicator), new CrossedDownIndicatorRule(rsi, Decimal
-                .valueOf(70))).or(stopLoss);
+                .valueOf(parameters.rsiUpper))).or(stopLoss);
+
+        return new Tuple2<>(entryRule, exitRule);
+    }
+
+    /**
+     * Build the same rules as
+     * {@link #buildStrategy(IndicatorRegistry, Builder)} on
+     * {@link DoubleIndicator DoubleIndicators}.
+     *
+     * @param registry
+     * {@link IndicatorRegistry IndicatorRegistry} of the series to use when building the {@link eu.verdelhan.ta4j.Strategy Strategy}
+     * @param parameters the periods and thresholds of the strategy.
+     * @return the rules to build the
+     * {@link eu.verdelhan.ta4j.Strategy Strategy}.
+     */
+    @Contract("null, _ -> fail")
+    private static Tuple2<Rule, Rule> buildDoubleStrategy(IndicatorRegistry
+                                                                  registry,
+                                                          Builder parameters) {
+        if (registry == null) {
+            throw new IllegalArgumentException("Series cannot be null");
+        }
+
+        DoubleIndicator closePrice = registry.doubleClosePrice();
+
+        DoubleIndicator aroonUp = registry.doubleAroon(parameters
+                .aroonPeriods, true);
+        DoubleIndicator aroonDown = registry.doubleAroon(parameters
+                .aroonPeriods, false);
+
+        DoubleIndicator rsi = registry.doubleRsi(parameters.rsiPeriods);
+
+        // Every index is evaluated, computing the indicators one at a time
+        // over the whole series
+        DoubleIndicator.precompute(aroonUp, aroonDown, rsi);
+
+        // The rules are flattened into one plan, each condition being
+        // evaluated at most once per index
+        RulePlan plan = new RulePlan();
+
+        Rule entryRule = plan.anyOf(plan.allOf(new DoubleOverIndicatorRule
+                (aroonUp, aroonDown), new DoubleCrossedUpIndicatorRule(rsi,
+                parameters.rsiLower)));
+
+        // Protect assets on loss
+        Rule stopLoss = plan.onTrade(new DoubleStopLossRule(closePrice,
+                parameters.stopLossThreshold));
+
+        Rule exitRule = plan.anyOf(plan.allOf(new DoubleOverIndicatorRule
+                (aroonDown, aroonUp), new DoubleCrossedDownIndicatorRule(rsi,
+                parameters.rsiUpper)), plan.allOf(stopLoss));
 
         return new Tuple2<>(entryRule, exitRule);
     }
 
+    /**
+     * Builds a {@link MomentumStrategy} with other periods and thresholds,
+     * e.g. to search for the best ones. The defaults are those of the
+     * strategy.
+     */
+    public static class Builder {
+
+        private int aroonPeriods = AROON_PERIODS;
+        private int rsiPeriods = RSI_PERIODS;
+        private int rsiLower = RSI_LOWER;
+        private int rsiUpper = RSI_UPPER;
+        private int stopLossThreshold = STOP_LOSS_THRESHOLD;
+
+        /**
+         * @param periods the number of periods of the Aroon indicators.
+         * @return this builder.
+         */
+        public Builder aroonPeriods(int periods) {
+            this.aroonPeriods = periods;
+            return this;
+        }
+
+        /**
+         * @param periods the number of periods of the Relative Strength
+         *                Index.
+         * @return this builder.
+         */
+        public Builder rsiPeriods(int periods) {
+            this.rsiPeriods = periods;
+            return this;
+        }
+
+        /**
+         * @param lower the lower bound of the Relative Strength Index.
+         * @param upper the upper bound of the Relative Strength Index.
+         * @return this builder.
+         */
+        public Builder rsiBounds(int lower, int upper) {
+            this.rsiLower = lower;
+            this.rsiUpper = upper;
+            return this;
+        }
+
+        /**
+         * @param threshold the maximum loss (in percent) of a trade.
+         * @return this builder.
+         */
+        public Builder stopLossThreshold(int threshold) {
+            this.stopLossThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * @param registry   the indicators of the series to trade on, shared
+         *                   with the other strategies built on it.
+         * @param useDoubles true to compute the indicators with
+         *                   {@code double} values instead of
+         *                   {@link Decimal}.
+         * @return the strategy.
+         */
+        public MomentumStrategy build(IndicatorRegistry registry, boolean
+                useDoubles) {
+            return new MomentumStrategy(this, registry, useDoubles);
+        }
+
+        @Override
+        public String toString() {
+            return "Aroon: " + aroonPeriods + ", RSI: " + rsiPeriods + " [" +
+                    rsiLower + ", " + rsiUpper + "], stop loss: " +
+                    stopLossThreshold + "%";
+        }
+
+    }
+
 }
@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.strategies.rules;
+
+import eu.verdelhan.ta4j.TradingRecord;
+import eu.verdelhan.ta4j.trading.rules.AbstractRule;
+import trader.indicators.DoubleIndicator;
+
+/**
+ * Satisfied when an indicator crosses below a threshold, the
+ * {@link DoubleIndicator} counterpart of ta4j's
+ * {@link eu.verdelhan.ta4j.trading.rules.CrossedDownIndicatorRule
+ * CrossedDownIndicatorRule}.
+ *
+ * @author Joshua Kahn
+ */
+public class DoubleCrossedDownIndicatorRule extends AbstractRule {
+
+    private final DoubleIndicator indicator;
+
+    private final double threshold;
+
+    public DoubleCrossedDownIndicatorRule(DoubleIndicator indicator, double
+            threshold) {
+        this.indicator = indicator;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public boolean isSatisfied(int index, TradingRecord tradingRecord) {
+        final boolean satisfied = crossed(indicator, threshold, index, 1);
+        traceIsSatisfied(index, satisfied);
+        return satisfied;
+    }
+
+    /**
+     * Check whether the sign of {@code direction * (indicator - threshold)}
+     * went from positive to negative at an index, skipping the values equal
+     * to the threshold, like ta4j's {@code CrossIndicator}.
+     *
+     * @param indicator the indicator.
+     * @param threshold the threshold to cross.
+     * @param direction 1 to cross downwards, -1 to cross upwards.
+     * @param index     the index to check.
+     * @return true if the indicator crossed the threshold at {@code index}.
+     */
+    static boolean crossed(DoubleIndicator indicator, double threshold, int
+            index, int direction) {
+        if (index == 0 || !(direction * (indicator.getValue(index) -
+                threshold) < 0)) {
+            return false;
+        }
+        int i = index - 1;
+        if (direction * (indicator.getValue(i) - threshold) > 0) {
+            return true;
+        }
+        while (i > 0 && direction * (indicator.getValue(i) - threshold) ==
+                0) {
+            i--;
+        }
+        return i != 0 && direction * (indicator.getValue(i) - threshold) > 0;
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.strategies.rules;
+
+import eu.verdelhan.ta4j.TradingRecord;
+import eu.verdelhan.ta4j.trading.rules.AbstractRule;
+import trader.indicators.DoubleIndicator;
+
+/**
+ * Satisfied when an indicator crosses above a threshold, the
+ * {@link DoubleIndicator} counterpart of ta4j's
+ * {@link eu.verdelhan.ta4j.trading.rules.CrossedUpIndicatorRule
+ * CrossedUpIndicatorRule}.
+ *
+ * @author Joshua Kahn
+ */
+public class DoubleCrossedUpIndicatorRule extends AbstractRule {
+
+    private final DoubleIndicator indicator;
+
+    private final double threshold;
+
+    public DoubleCrossedUpIndicatorRule(DoubleIndicator indicator, double
+            threshold) {
+        this.indicator = indicator;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public boolean isSatisfied(int index, TradingRecord tradingRecord) {
+        final boolean satisfied = DoubleCrossedDownIndicatorRule.crossed
+                (indicator, threshold, index, -1);
+        traceIsSatisfied(index, satisfied);
+        return satisfied;
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.strategies.rules;
+
+import eu.verdelhan.ta4j.TradingRecord;
+import eu.verdelhan.ta4j.trading.rules.AbstractRule;
+import trader.indicators.DoubleIndicator;
+
+/**
+ * Satisfied when the first indicator is strictly greater than the second,
+ * the {@link DoubleIndicator} counterpart of ta4j's
+ * {@link eu.verdelhan.ta4j.trading.rules.OverIndicatorRule OverIndicatorRule}.
+ *
+ * @author Joshua Kahn
+ */
+public class DoubleOverIndicatorRule extends AbstractRule {
+
+    private final DoubleIndicator first;
+
+    private final DoubleIndicator second;
+
+    public DoubleOverIndicatorRule(DoubleIndicator first, DoubleIndicator
+            second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public boolean isSatisfied(int index, TradingRecord tradingRecord) {
+        final boolean satisfied = first.getValue(index) > second.getValue
+                (index);
+        traceIsSatisfied(index, satisfied);
+        return satisfied;
+    }
+
+}
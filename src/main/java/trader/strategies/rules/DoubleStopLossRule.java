@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.strategies.rules;
+
+import eu.verdelhan.ta4j.Order;
+import eu.verdelhan.ta4j.Trade;
+import eu.verdelhan.ta4j.TradingRecord;
+import eu.verdelhan.ta4j.trading.rules.AbstractRule;
+import trader.indicators.DoubleIndicator;
+
+/**
+ * Satisfied when the close price of an opened trade reaches a loss
+ * threshold, the {@link DoubleIndicator} counterpart of ta4j's
+ * {@link eu.verdelhan.ta4j.trading.rules.StopLossRule StopLossRule}.
+ *
+ * @author Joshua Kahn
+ */
+public class DoubleStopLossRule extends AbstractRule {
+
+    private final DoubleIndicator closePrice;
+
+    /**
+     * The ratio of the entry price at which the trade is stopped.
+     */
+    private final double lossRatioThreshold;
+
+    /**
+     * @param closePrice     the close price.
+     * @param lossPercentage the loss (in percent) of the entry price.
+     */
+    public DoubleStopLossRule(DoubleIndicator closePrice, double
+            lossPercentage) {
+        this.closePrice = closePrice;
+        this.lossRatioThreshold = (100 - lossPercentage) / 100;
+    }
+
+    @Override
+    public boolean isSatisfied(int index, TradingRecord tradingRecord) {
+        boolean satisfied = false;
+        if (tradingRecord != null) {
+            Trade currentTrade = tradingRecord.getCurrentTrade();
+            if (currentTrade.isOpened()) {
+                Order entry = currentTrade.getEntry();
+                double threshold = entry.getPrice().toDouble() *
+                        lossRatioThreshold;
+                double currentPrice = closePrice.getValue(index);
+                satisfied = entry.isBuy() ? currentPrice <= threshold :
+                        currentPrice >= threshold;
+            }
+        }
+        traceIsSatisfied(index, satisfied);
+        return satisfied;
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package trader.strategies.rules;
+
+import eu.verdelhan.ta4j.Rule;
+import eu.verdelhan.ta4j.TradingRecord;
+import eu.verdelhan.ta4j.trading.rules.AbstractRule;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A flat evaluation plan for the rules of a strategy, instead of nested
+ * {@link eu.verdelhan.ta4j.trading.rules.AndRule AndRules} and
+ * {@link eu.verdelhan.ta4j.trading.rules.OrRule OrRules}.
+ * <p/>
+ * A rule of the plan is an OR of clauses, each clause being an AND of
+ * conditions. The conditions are registered once in the plan, which keeps
+ * the result of each of them at the last index evaluated, so a condition
+ * used by several clauses or rules is evaluated once per index. The plan
+ * also counts how often each condition is satisfied, and regularly
+ * reorders the clauses so that the conditions most likely to fail an AND
+ * and the clauses most likely to satisfy the OR are checked first.
+ * <p/>
+ * The conditions depending on the trading record, like the stop rules,
+ * must be registered with {@link #onTrade(Rule)}: they are evaluated every
+ * time.
+ * <p/>
+ * The rules of a plan can be evaluated by several threads at once, e.g. by
+ * a walkover test, as long as their conditions can: a condition always
+ * gives the same result at an index, so the results kept are valid for
+ * all threads. The counts are then approximate, which only affects the
+ * order of evaluation.
+ *
+ * @author Joshua Kahn
+ */
+public class RulePlan {
+
+    /**
+     * The number of evaluations of a rule between two reorderings of its
+     * clauses.
+     */
+    private static final int REORDER_INTERVAL = 1024;
+
+    /**
+     * The identifiers of the conditions registered.
+     */
+    private final Map<Rule, Integer> identifiers = new IdentityHashMap<>();
+
+    private Rule[] conditions = new Rule[0];
+
+    /**
+     * True for the conditions depending on the trading record.
+     */
+    private boolean[] onTrade = new boolean[0];
+
+    /**
+     * The last index each condition was evaluated at and its result, as
+     * {@code index << 1 | result}, -1 if never. A single int is written at
+     * once, so threads never see an index with the result of another.
+     */
+    private int[] results = new int[0];
+
+    private long[] evaluations = new long[0];
+
+    private long[] satisfactions = new long[0];
+
+    /**
+     * Register a condition depending on the trading record, e.g. a stop
+     * rule, so that it is evaluated every time instead of once per index.
+     *
+     * @param condition the condition.
+     * @return the condition, to be given to {@link #allOf(Rule...)}.
+     */
+    public Rule onTrade(Rule condition) {
+        int id = register(condition);
+        this.onTrade[id] = true;
+        return condition;
+    }
+
+    /**
+     * @param conditions the conditions which must all be satisfied.
+     * @return the clause, to be given to {@link #anyOf(int[]...)}.
+     */
+    public int[] allOf(Rule... conditions) {
+        int[] clause = new int[conditions.length];
+        for (int i = 0; i < conditions.length; i++) {
+            clause[i] = register(conditions[i]);
+        }
+        return clause;
+    }
+
+    /**
+     * @param clauses the clauses of which at least one must be satisfied.
+     * @return the rule evaluating the clauses on this plan.
+     */
+    public Rule anyOf(int[]... clauses) {
+        int[][] copy = new int[clauses.length][];
+        for (int i = 0; i < clauses.length; i++) {
+            copy[i] = clauses[i].clone();
+        }
+        return new PlanRule(copy);
+    }
+
+    /**
+     * @return the number of distinct conditions of the plan.
+     */
+    public int size() {
+        return this.conditions.length;
+    }
+
+    private int register(Rule condition) {
+        Integer identifier = this.identifiers.get(condition);
+        if (identifier != null) {
+            return identifier;
+        }
+        int id = this.conditions.length;
+        this.identifiers.put(condition, id);
+        this.conditions = Arrays.copyOf(this.conditions, id + 1);
+        this.conditions[id] = condition;
+        this.onTrade = Arrays.copyOf(this.onTrade, id + 1);
+        this.results = Arrays.copyOf(this.results, id + 1);
+        this.results[id] = -1;
+        this.evaluations = Arrays.copyOf(this.evaluations, id + 1);
+        this.satisfactions = Arrays.copyOf(this.satisfactions, id + 1);
+        return id;
+    }
+
+    private boolean isSatisfied(int condition, int index, TradingRecord
+            tradingRecord) {
+        if (!this.onTrade[condition]) {
+            int result = this.results[condition];
+            if (result >>> 1 == index) {
+                return (result & 1) == 1;
+            }
+        }
+        boolean satisfied = this.conditions[condition].isSatisfied(index,
+                tradingRecord);
+        this.results[condition] = index << 1 | (satisfied ? 1 : 0);
+        this.evaluations[condition]++;
+        if (satisfied) {
+            this.satisfactions[condition]++;
+        }
+        return satisfied;
+    }
+
+    /**
+     * @return the estimated probability of a condition being satisfied.
+     */
+    private double probability(int condition) {
+        return (this.satisfactions[condition] + 1D) / (this
+                .evaluations[condition] + 2D);
+    }
+
+    /**
+     * An OR of AND clauses of the conditions of the plan.
+     */
+    private class PlanRule extends AbstractRule {
+
+        /**
+         * Replaced by a reordered copy, never changed in place, so a thread
+         * evaluating the rule never sees a clause half reordered.
+         */
+        private volatile int[][] clauses;
+
+        private int evaluationsBeforeReorder = REORDER_INTERVAL;
+
+        PlanRule(int[][] clauses) {
+            this.clauses = clauses;
+        }
+
+        @Override
+        public boolean isSatisfied(int index, TradingRecord tradingRecord) {
+            if (--this.evaluationsBeforeReorder <= 0) {
+                this.evaluationsBeforeReorder = REORDER_INTERVAL;
+                this.clauses = reorder(this.clauses);
+            }
+            boolean satisfied = false;
+            for (int[] clause : this.clauses) {
+                satisfied = true;
+                for (int condition : clause) {
+                    if (!RulePlan.this.isSatisfied(condition, index,
+                            tradingRecord)) {
+                        satisfied = false;
+                        break;
+                    }
+                }
+                if (satisfied) {
+                    break;
+                }
+            }
+            traceIsSatisfied(index, satisfied);
+            return satisfied;
+        }
+
+        /**
+         * Sort the conditions of each clause by increasing probability, and
+         * the clauses by decreasing probability. The rules being pure, the
+         * order does not change their result.
+         *
+         * @param clauses the clauses to reorder.
+         * @return the reordered copy of the clauses.
+         */
+        private int[][] reorder(int[][] clauses) {
+            int[][] sorted = new int[clauses.length][];
+            double[] clauseProbabilities = new double[clauses.length];
+            for (int i = 0; i < clauses.length; i++) {
+                int[] clause = clauses[i].clone();
+                // Insertion sort, the clauses are short and mostly sorted
+                double probability = 1D;
+                for (int j = 0; j < clause.length; j++) {
+                    int condition = clause[j];
+                    double p = probability(condition);
+                    probability *= p;
+                    int k = j - 1;
+                    while (k >= 0 && probability(clause[k]) > p) {
+                        clause[k + 1] = clause[k];
+                        k--;
+                    }
+                    clause[k + 1] = condition;
+                }
+
+                int k = i - 1;
+                while (k >= 0 && clauseProbabilities[k] < probability) {
+                    sorted[k + 1] = sorted[k];
+                    clauseProbabilities[k + 1] = clauseProbabilities[k];
+                    k--;
+                }
+                sorted[k + 1] = clause;
+                clauseProbabilities[k + 1] = probability;
+            }
+            return sorted;
+        }
+
+    }
+
+}
@@ -0,0 +1,439 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import eu.verdelhan.ta4j.Decimal;
+import eu.verdelhan.ta4j.Tick;
+import eu.verdelhan.ta4j.TimeSeries;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import trader.exchanges.backtest.BacktestLoader;
+import trader.exchanges.backtest.ChunkedTradeLoader;
+import trader.exchanges.backtest.IncrementalLoader;
+import trader.exchanges.backtest.ReadAheadInputStream;
+import trader.exchanges.backtest.TickCache;
+import trader.exchanges.backtest.TradeFileReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Created by jkahn on 1/20/16.
+ *
+ * @author Joshua Kahn
+ */
+public class BacktestLoaderTest {
+
+    private TimeSeries series;
+
+    @Before
+    public void setup() {
+        this.series = BacktestLoader.loadSeries("testUSD.csv");
+    }
+
+    @Test
+    public void testEmptyTicksRemoved() {
+        assertEquals(4, series.getTickCount());
+        assertEquals(1060000L, series.getTick(0).getEndTime().getMillis());
+        assertEquals(1180000L, series.getTick(1).getEndTime().getMillis());
+        assertEquals(1360000L, series.getTick(2).getEndTime().getMillis());
+        assertEquals(1420000L, series.getTick(3).getEndTime().getMillis());
+    }
+
+    @Test
+    public void testTradesFolded() {
+        Tick tick = series.getTick(0);
+        assertEquals(3, tick.getTrades());
+        assertEquals(Decimal.valueOf(10), tick.getOpenPrice());
+        assertEquals(Decimal.valueOf(12), tick.getMaxPrice());
+        assertEquals(Decimal.valueOf(10), tick.getMinPrice());
+        assertEquals(Decimal.valueOf(11), tick.getClosePrice());
+        assertEquals(Decimal.valueOf(3.5), tick.getAmount());
+
+        tick = series.getTick(2);
+        assertEquals(2, tick.getTrades());
+        assertEquals(Decimal.valueOf(15), tick.getOpenPrice());
+        assertEquals(Decimal.valueOf(14), tick.getClosePrice());
+    }
+
+    @Test
+    public void testTickCache() throws IOException {
+        Path source = Files.createTempFile("testUSD", ".csv");
+        try {
+            List<Tick> ticks = new ArrayList<>();
+            for (int i = 0; i < series.getTickCount(); i++) {
+                ticks.add(series.getTick(i));
+            }
+            TickCache.write(source, 60, ticks);
+
+            List<Tick> cached = TickCache.read(source, 60);
+            assertEquals(ticks.size(), cached.size());
+            for (int i = 0; i < ticks.size(); i++) {
+                Tick tick = ticks.get(i);
+                Tick cachedTick = cached.get(i);
+                assertEquals(tick.getEndTime(), cachedTick.getEndTime());
+                assertEquals(tick.getOpenPrice(), cachedTick.getOpenPrice());
+                assertEquals(tick.getMaxPrice(), cachedTick.getMaxPrice());
+                assertEquals(tick.getMinPrice(), cachedTick.getMinPrice());
+                assertEquals(tick.getClosePrice(), cachedTick
+                        .getClosePrice());
+                assertEquals(tick.getAmount(), cachedTick.getAmount());
+                assertEquals(tick.getTrades(), cachedTick.getTrades());
+            }
+
+            // A different tick length doesn't match the cache
+            assertNull(TickCache.read(source, 120));
+
+            // Changing the source makes the cache stale
+            Files.write(source, "1000,10.0,1.0\n".getBytes("UTF-8"));
+            assertNull(TickCache.read(source, 60));
+        } finally {
+            Files.deleteIfExists(TickCache.getCacheFile(source));
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Test
+    public void testTickCacheExactSums() throws IOException {
+        Path source = Files.createTempFile("trades", ".csv");
+        try {
+            // Sums with more digits than a double holds
+            Files.write(source, ("1000,1234.56789,0.123456789012\n" +
+                    "1010,1234.56788,0.987654321098\n" +
+                    "1020,1234.56787,12.345678901234\n").getBytes("UTF-8"));
+            List<Tick> ticks = ChunkedTradeLoader.loadTicks(source, 60);
+            TickCache.write(source, 60, ticks);
+
+            List<Tick> cached = TickCache.read(source, 60);
+            for (int i = 0; i < ticks.size(); i++) {
+                assertEquals(ticks.get(i).getAmount().toString(), cached.get
+                        (i).getAmount().toString());
+                assertEquals(ticks.get(i).getVolume().toString(), cached.get
+                        (i).getVolume().toString());
+            }
+        } finally {
+            Files.deleteIfExists(TickCache.getCacheFile(source));
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Test
+    public void testTickCacheTooLarge() throws IOException {
+        Path source = Files.createTempFile("trades", ".csv");
+        try {
+            // Too many ticks to map a column of longs in a single buffer
+            List<Tick> ticks = Collections.nCopies(Integer.MAX_VALUE / 8 + 1,
+                    series.getTick(0));
+            try {
+                TickCache.write(source, 60, ticks);
+                fail("The cache couldn't be read back");
+            } catch (IOException e) {
+                assertFalse(Files.exists(TickCache.getCacheFile(source)));
+            }
+        } finally {
+            Files.deleteIfExists(TickCache.getCacheFile(source));
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Test
+    public void testChunkedLoading() throws IOException {
+        Path source = Files.createTempFile("trades", ".csv");
+        try {
+            StringBuilder builder = new StringBuilder("timestamp,price," +
+                    "amount\n");
+            Random random = new Random(42);
+            long timestamp = 1000;
+            for (int i = 0; i < 5000; i++) {
+                timestamp += random.nextInt(90);
+                builder.append(timestamp).append(',').append(200 + random
+                        .nextInt(1000) / 100D).append(',').append(random
+                        .nextInt(500) / 100D).append('\n');
+            }
+            Files.write(source, builder.toString().getBytes("UTF-8"));
+
+            try (FileChannel channel = FileChannel.open(source,
+                    StandardOpenOption.READ)) {
+                List<Tick> expected = ChunkedTradeLoader.loadTicks(channel,
+                        60, 1);
+                List<Tick> ticks = ChunkedTradeLoader.loadTicks(channel, 60,
+                        13);
+                assertEquals(expected.size(), ticks.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    Tick expectedTick = expected.get(i);
+                    Tick tick = ticks.get(i);
+                    assertEquals(expectedTick.getEndTime(), tick.getEndTime());
+                    assertEquals(expectedTick.getOpenPrice(), tick
+                            .getOpenPrice());
+                    assertEquals(expectedTick.getMaxPrice(), tick
+                            .getMaxPrice());
+                    assertEquals(expectedTick.getMinPrice(), tick
+                            .getMinPrice());
+                    assertEquals(expectedTick.getClosePrice(), tick
+                            .getClosePrice());
+                    assertEquals(expectedTick.getAmount(), tick.getAmount());
+                    assertEquals(expectedTick.getTrades(), tick.getTrades());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Test
+    public void testMultipleTickLengths() {
+        Map<Integer, TimeSeries> seriesByLength = BacktestLoader.loadSeries
+                ("testUSD.csv", 300, 60, 120);
+        assertEquals(3, seriesByLength.size());
+        assertEquals(5, seriesByLength.get(60).getTickCount());
+        assertEquals(3, seriesByLength.get(120).getTickCount());
+
+        // Ticks are aligned on a multiple of the longest tick length
+        TimeSeries fiveMinutes = seriesByLength.get(300);
+        assertEquals(2, fiveMinutes.getTickCount());
+        Tick tick = fiveMinutes.getTick(0);
+        assertEquals(1200000L, tick.getEndTime().getMillis());
+        assertEquals(4, tick.getTrades());
+        assertEquals(Decimal.valueOf(10), tick.getOpenPrice());
+        assertEquals(Decimal.valueOf(12), tick.getMaxPrice());
+        assertEquals(Decimal.valueOf(9), tick.getMinPrice());
+        assertEquals(Decimal.valueOf(9), tick.getClosePrice());
+        assertEquals(Decimal.valueOf(4.5), tick.getAmount());
+        tick = fiveMinutes.getTick(1);
+        assertEquals(1500000L, tick.getEndTime().getMillis());
+        assertEquals(3, tick.getTrades());
+        assertEquals(Decimal.valueOf(13), tick.getClosePrice());
+    }
+
+    @Test
+    public void testTimeRange() {
+        TimeSeries window = BacktestLoader.loadSeries("testUSD.csv", new
+                DateTime(1059000L), new DateTime(1360000L));
+        assertEquals(3, window.getTickCount());
+
+        // The ticks are aligned with the ones of the whole series
+        assertEquals(series.getTick(0).getEndTime(), window.getTick(0)
+                .getEndTime());
+        assertEquals(1, window.getTick(0).getTrades());
+        assertEquals(Decimal.valueOf(11), window.getTick(0).getOpenPrice());
+        assertEquals(series.getTick(1).getEndTime(), window.getTick(1)
+                .getEndTime());
+        assertEquals(series.getTick(2).getEndTime(), window.getTick(2)
+                .getEndTime());
+        assertEquals(2, window.getTick(2).getTrades());
+    }
+
+    @Test
+    public void testIncrementalLoading() throws IOException {
+        Path source = Files.createTempFile("trades", ".csv");
+        try {
+            Files.write(source, ("timestamp,price,amount\n1000,10.0,1.0\n" +
+                    "1010,12.0,0.5\n").getBytes("UTF-8"));
+            try (IncrementalLoader loader = new IncrementalLoader(source,
+                    "test", 60)) {
+                TimeSeries follower = loader.getTimeSeries();
+                assertEquals(1, follower.getTickCount());
+                assertEquals(0, loader.refresh());
+
+                // The last tick is finished, a partial line isn't read
+                Files.write(source, "1059,11.0,2.0\n1130,9".getBytes
+                        ("UTF-8"), StandardOpenOption.APPEND);
+                assertEquals(0, loader.refresh());
+                assertEquals(3, follower.getTick(0).getTrades());
+                assertEquals(Decimal.valueOf(11), follower.getTick(0)
+                        .getClosePrice());
+
+                Files.write(source, ".0,1.0\n1300,15.0,1.0\n".getBytes
+                        ("UTF-8"), StandardOpenOption.APPEND);
+                assertEquals(2, loader.refresh());
+                assertEquals(3, follower.getTickCount());
+                assertEquals(Decimal.valueOf(9), follower.getTick(1)
+                        .getClosePrice());
+                assertEquals(1360000L, follower.getTick(2).getEndTime()
+                        .getMillis());
+            }
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Test
+    public void testIncrementalHeader() throws IOException {
+        Path source = Files.createTempFile("trades", ".csv");
+        try {
+            try (IncrementalLoader loader = new IncrementalLoader(source,
+                    "test", 60)) {
+                TimeSeries follower = loader.getTimeSeries();
+                assertEquals(0, follower.getTickCount());
+
+                // The header is written in two parts
+                Files.write(source, "timestamp,pri".getBytes("UTF-8"),
+                        StandardOpenOption.APPEND);
+                assertEquals(0, loader.refresh());
+                Files.write(source, "ce,amount\n".getBytes("UTF-8"),
+                        StandardOpenOption.APPEND);
+                assertEquals(0, loader.refresh());
+                assertEquals(0, follower.getTickCount());
+
+                // Not read as a trade once the first one is appended
+                Files.write(source, "1000,10.0,1.0\n".getBytes("UTF-8"),
+                        StandardOpenOption.APPEND);
+                assertEquals(1, loader.refresh());
+                assertEquals(1, follower.getTickCount());
+                assertEquals(1, follower.getTick(0).getTrades());
+                assertEquals(Decimal.valueOf(10), follower.getTick(0)
+                        .getOpenPrice());
+            }
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Test
+    public void testCompressedFile() {
+        TimeSeries compressed = BacktestLoader.loadSeries("testUSD.csv.gz");
+        assertEquals(series.getTickCount(), compressed.getTickCount());
+        for (int i = 0; i < series.getTickCount(); i++) {
+            Tick tick = series.getTick(i);
+            Tick compressedTick = compressed.getTick(i);
+            assertEquals(tick.getEndTime(), compressedTick.getEndTime());
+            assertEquals(tick.getOpenPrice(), compressedTick.getOpenPrice());
+            assertEquals(tick.getClosePrice(), compressedTick
+                    .getClosePrice());
+            assertEquals(tick.getTrades(), compressedTick.getTrades());
+        }
+    }
+
+    @Test
+    public void testShardedFiles() {
+        TimeSeries sharded = BacktestLoader.loadShardedSeries("shards");
+        assertEquals(series.getTickCount(), sharded.getTickCount());
+        for (int i = 0; i < series.getTickCount(); i++) {
+            Tick tick = series.getTick(i);
+            Tick shardedTick = sharded.getTick(i);
+            assertEquals(tick.getEndTime(), shardedTick.getEndTime());
+            assertEquals(tick.getOpenPrice(), shardedTick.getOpenPrice());
+            assertEquals(tick.getClosePrice(), shardedTick.getClosePrice());
+            assertEquals(tick.getAmount(), shardedTick.getAmount());
+            // The trade in both shards is only counted once
+            assertEquals(tick.getTrades(), shardedTick.getTrades());
+        }
+
+        TimeSeries firstShard = BacktestLoader.loadShardedSeries
+                ("shards/*-01.csv");
+        assertEquals(3, firstShard.getTickCount());
+    }
+
+    @Test
+    public void testNumberFormats() throws IOException {
+        String[] numbers = {"10", "10.", ".5", "5.800000000000", "0.1",
+                "1234.123456789012", "12345678901234567890.5", "1.5E-4"};
+        StringBuilder trades = new StringBuilder();
+        for (String number : numbers) {
+            trades.append("1000,").append(number).append(",\"").append
+                    (number).append("\"\r\n");
+        }
+        TradeFileReader reader = new TradeFileReader(Channels.newChannel(new
+                ByteArrayInputStream(trades.toString().getBytes
+                (StandardCharsets.US_ASCII))));
+        for (String number : numbers) {
+            reader.next();
+            // Parsed to the same double
+            assertEquals(Double.parseDouble(number), reader.getPrice(), 0D);
+            assertEquals(Double.parseDouble(number), reader.getAmount(), 0D);
+        }
+    }
+
+    @Test
+    public void testReadAheadFailure() throws IOException {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("Corrupted source");
+            }
+        };
+        try (InputStream stream = new ReadAheadInputStream(failing,
+                "test-read-ahead")) {
+            // Passed on to the consumer instead of leaving it waiting
+            stream.read();
+            fail("The failure of the source was not passed on");
+        } catch (IllegalStateException e) {
+            assertEquals("Corrupted source", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadAheadBlocks() throws IOException {
+        // A few blocks of 1 MB and a partial one
+        byte[] bytes = new byte[(7 << 20) / 2];
+        new Random(42).nextBytes(bytes);
+        byte[] read = new byte[bytes.length];
+        try (InputStream stream = new ReadAheadInputStream(new
+                ByteArrayInputStream(bytes), "test-read-ahead")) {
+            int length = 0;
+            int n;
+            while ((n = stream.read(read, length, Math.min(4096, read.length
+                    - length))) > 0) {
+                length += n;
+            }
+            assertEquals(bytes.length, length);
+            assertEquals(-1, stream.read());
+        }
+        // The blocks filled again hold the right bytes
+        assertArrayEquals(bytes, read);
+    }
+
+    @Test
+    public void testReadAheadAfterClose() throws IOException {
+        InputStream stream = new ReadAheadInputStream(new
+                ByteArrayInputStream(new byte[]{1, 2, 3}), "test-read-ahead");
+        assertEquals(1, stream.read());
+        stream.close();
+        try {
+            // Instead of waiting forever for a block
+            stream.read();
+            fail("The stream was read after being closed");
+        } catch (IOException e) {
+            assertEquals("Stream closed", e.getMessage());
+        }
+    }
+
+}
@@ -24,6 +24,15 @@
 import eu.verdelhan.ta4j.Strategy;
 import eu.verdelhan.ta4j.TimeSeries;
 import eu.verdelhan.ta4j.TradingRecord;
+import eu.verdelhan.ta4j.analysis.criteria.AverageProfitableTradesCriterion;
+import eu.verdelhan.ta4j.analysis.criteria.BuyAndHoldCriterion;
+import eu.verdelhan.ta4j.analysis.criteria.LinearTransactionCostCriterion;
+import eu.verdelhan.ta4j.analysis.criteria.MaximumDrawdownCriterion;
+import eu.verdelhan.ta4j.analysis.criteria.NumberOfTradesCriterion;
+import eu.verdelhan.ta4j.analysis.criteria.RewardRiskRatioCriterion;
+import eu.verdelhan.ta4j.analysis.criteria.TotalProfitCriterion;
+import eu.verdelhan.ta4j.trading.rules.BooleanRule;
+import eu.verdelhan.ta4j.trading.rules.FixedRule;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -32,8 +41,14 @@ import org.mockito.MockitoAnnotations;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import trader.exchanges.backtest.BacktestResult;
+import trader.exchanges.backtest.WalkoverWindow;
+import trader.indicators.IndicatorRegistry;
 import trader.strategies.BasicStrategy;
 
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -74,4 +89,135 @@ public class BacktestResultTest {
         verify(series, times(1)).run(strategy);
     }
 
+    @Test
+    public void testMultipleStrategies() {
+        Strategy always = new Strategy(BooleanRule.TRUE, BooleanRule.TRUE);
+        Strategy never = new Strategy(BooleanRule.FALSE, BooleanRule.FALSE);
+        BacktestResult multiple = new BacktestResult(TestSeries.rising(10),
+                always, never).test();
+
+        assertEquals(2, multiple.getNumberOfStrategies());
+        // Entering and exiting on every other tick
+        assertEquals(5, multiple.getNumberOfTrades(0));
+        assertEquals(0, multiple.getNumberOfTrades(1));
+        assertEquals(multiple.getNumberOfTrades(0), multiple
+                .getNumberOfTrades());
+    }
+
+    @Test
+    public void testMultipleStrategiesOnSubseries() {
+        TimeSeries subseries = TestSeries.rising(10).subseries(0, 5);
+        // Entered within the subseries, exited after its end
+        Strategy fixed = new Strategy(new FixedRule(4), new FixedRule(7));
+        Strategy never = new Strategy(BooleanRule.FALSE, BooleanRule.FALSE);
+        TradingRecord alone = new BacktestResult(subseries, fixed).test()
+                .getTradingRecord(0);
+        TradingRecord together = new BacktestResult(subseries, fixed, never)
+                .test().getTradingRecord(0);
+
+        // The same trades, whatever the number of strategies run
+        assertEquals(1, alone.getTradeCount());
+        assertEquals(alone.getTradeCount(), together.getTradeCount());
+        assertEquals(alone.getLastTrade().getExit().getIndex(), together
+                .getLastTrade().getExit().getIndex());
+        assertEquals(7, together.getLastTrade().getExit().getIndex());
+    }
+
+    @Test
+    public void testWalkoverTest() {
+        // Rising for 20 ticks, then falling
+        double[] prices = new double[40];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = i < 20 ? 400 + i : 438 - i;
+        }
+        Strategy always = new Strategy(BooleanRule.TRUE, BooleanRule.TRUE);
+        Strategy never = new Strategy(BooleanRule.FALSE, BooleanRule.FALSE);
+        BacktestResult walkover = new BacktestResult(TestSeries.of(prices),
+                always, never).walkoverTest(10, 5, 5);
+
+        List<WalkoverWindow> windows = walkover.getWindows();
+        assertEquals(6, windows.size());
+        int[] expected = {0, 0, 0, 1, 1, 1};
+        for (int i = 0; i < windows.size(); i++) {
+            assertEquals(expected[i], windows.get(i).getStrategyIndex());
+        }
+        // The trade opened at the end of a window is dropped
+        assertEquals(2, windows.get(0).getOutOfSampleResult()
+                .getNumberOfTrades());
+        assertEquals(6, walkover.getNumberOfTrades());
+    }
+
+    @Test
+    public void testParallelWalkoverTest() {
+        TimeSeries walk = TestSeries.randomWalk(3, 1000);
+        BasicStrategy.Builder faster = new BasicStrategy.Builder()
+                .smaPeriods(5, 100);
+        // The Decimal strategies of the windows run one after the other
+        BacktestResult shared = new BacktestResult(walk, new BasicStrategy
+                (walk), faster.build(new IndicatorRegistry(walk), false))
+                .walkoverTest(300, 100, 100);
+        // Each window builds its own strategies, in parallel
+        BacktestResult parallel = new BacktestResult(walk).walkoverTest(300,
+                100, 100, series -> new Strategy[]{new BasicStrategy(series),
+                        faster.build(new IndicatorRegistry(series), false)});
+
+        assertEquals(shared.getWindows().size(), parallel.getWindows()
+                .size());
+        for (int i = 0; i < shared.getWindows().size(); i++) {
+            assertEquals(shared.getWindows().get(i).getStrategyIndex(),
+                    parallel.getWindows().get(i).getStrategyIndex());
+        }
+        assertEquals(shared.getNumberOfTrades(), parallel
+                .getNumberOfTrades());
+        assertEquals(shared.getProfit(), parallel.getProfit(), 0);
+    }
+
+    @Test
+    public void testMetrics() {
+        Strategy always = new Strategy(BooleanRule.TRUE, BooleanRule.TRUE);
+        BacktestResult rising = new BacktestResult(TestSeries.rising(10),
+                always).test();
+
+        assertEquals(5, rising.getNumberOfTrades());
+        assertEquals(409D / 400D, rising.getBuyAndHoldProfit(), 1e-12);
+        assertEquals(1D, rising.getProfitableTradesRatio(), 0);
+        assertEquals(0D, rising.getMaxDrawdown(), 0);
+        // In a trade on 5 of the 9 periods, never losing
+        assertEquals(5D / 9D, rising.getExposure(), 1e-12);
+        assertTrue(rising.getSharpeRatio() > 0);
+        assertTrue(Double.isNaN(rising.getSortinoRatio()));
+    }
+
+    @Test
+    public void testMetricsMatchCriteria() {
+        TimeSeries zigzag = TestSeries.of(10, 12, 9, 11, 8, 13, 12, 7, 9, 10,
+                11, 6);
+        // Losing from 10 to 9, gaining from 11 to 13, losing from 12 to 7,
+        // then still in a trade entered at 10
+        Strategy fixed = new Strategy(new FixedRule(0, 3, 6, 9), new
+                FixedRule(2, 5, 7));
+        BacktestResult metrics = new BacktestResult(zigzag, 0.02, 0.01,
+                fixed).test();
+        TradingRecord trades = metrics.getTradingRecord(0);
+        assertEquals(3, trades.getTradeCount());
+        assertTrue(trades.getCurrentTrade().isOpened());
+
+        assertEquals(new NumberOfTradesCriterion().calculate(zigzag, trades),
+                metrics.getNumberOfTrades(), 0);
+        assertEquals(new TotalProfitCriterion().calculate(zigzag, trades),
+                metrics.getProfit(), 1e-9);
+        assertEquals(new BuyAndHoldCriterion().calculate(zigzag, trades),
+                metrics.getBuyAndHoldProfit(), 1e-9);
+        assertEquals(new AverageProfitableTradesCriterion().calculate(zigzag,
+                trades), metrics.getProfitableTradesRatio(), 1e-9);
+        assertEquals(new MaximumDrawdownCriterion().calculate(zigzag,
+                trades), metrics.getMaxDrawdown(), 1e-9);
+        assertEquals(new RewardRiskRatioCriterion().calculate(zigzag,
+                trades), metrics.getRewardRiskRatio(), 1e-9);
+        assertEquals(new LinearTransactionCostCriterion(1, 0.02, 0.01)
+                .calculate(zigzag, trades), metrics.getLinearTransactionCost
+                (), 1e-9);
+        assertTrue(metrics.getMaxDrawdown() > 0);
+    }
+
 }
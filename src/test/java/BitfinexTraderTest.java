@@ -27,6 +27,8 @@ import com.xeiam.xchange.dto.Order;
 import com.xeiam.xchange.dto.trade.LimitOrder;
 import com.xeiam.xchange.dto.trade.MarketOrder;
 import com.xeiam.xchange.dto.trade.OpenOrders;
+import eu.verdelhan.ta4j.Strategy;
+import eu.verdelhan.ta4j.TimeSeries;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -35,13 +37,20 @@ import org.mockito.MockitoAnnotations;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
 import trader.exchanges.BitfinexTrader;
+import trader.indicators.DoubleIndicator;
+import trader.indicators.IndicatorRegistry;
+import trader.strategies.BasicStrategy;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -109,4 +118,80 @@ public class BitfinexTraderTest {
         verify(bitfinexTradeService, times(1)).placeMarketOrder(mktOrder);
     }
 
+    @Test
+    public void strategyMemoryTest() throws Exception {
+        TimeSeries ticks = TestSeries.randomWalk(5, 10 * BasicStrategy
+                .TICKS_NEEDED);
+        TimeSeries live = new TimeSeries("live");
+        live.setMaximumTickCount(BasicStrategy.TICKS_NEEDED);
+        IndicatorRegistry registry = new IndicatorRegistry(live);
+        Strategy strategy = null;
+        int[] cacheSizes = null;
+        for (int i = 0; i < ticks.getTickCount(); i++) {
+            live.addTick(ticks.getTick(i));
+            if (live.getTickCount() < BasicStrategy.TICKS_NEEDED) {
+                continue;
+            }
+            if (strategy == null) {
+                strategy = invokeMethod(BitfinexTrader.class,
+                        "buildStrategy", registry);
+            }
+            // Evaluated on every tick, like tickReceived
+            strategy.shouldEnter(live.getEnd());
+            strategy.shouldExit(live.getEnd());
+            if (i == 2 * BasicStrategy.TICKS_NEEDED) {
+                cacheSizes = cacheSizes(registry);
+            }
+        }
+
+        // No cache grew after twice the ticks kept by the series
+        assertArrayEquals(cacheSizes, cacheSizes(registry));
+        for (int size : cacheSizes) {
+            assertTrue(size <= BasicStrategy.TICKS_NEEDED);
+        }
+    }
+
+    @Test
+    public void incrementalStrategyTest() throws Exception {
+        TimeSeries ticks = TestSeries.randomWalk(5, 10 * BasicStrategy
+                .TICKS_NEEDED);
+        Strategy expected = new BasicStrategy(ticks, true);
+        TimeSeries live = new TimeSeries("live");
+        live.setMaximumTickCount(BasicStrategy.TICKS_NEEDED);
+        IndicatorRegistry registry = new IndicatorRegistry(live, true);
+        Strategy strategy = null;
+        for (int i = 0; i < ticks.getTickCount(); i++) {
+            live.addTick(ticks.getTick(i));
+            if (live.getTickCount() < BasicStrategy.TICKS_NEEDED) {
+                continue;
+            }
+            if (strategy == null) {
+                strategy = invokeMethod(BitfinexTrader.class,
+                        "buildStrategy", registry);
+            }
+            // The same signals as a backtest over the whole series
+            assertEquals(expected.shouldEnter(i), strategy.shouldEnter(live
+                    .getEnd()));
+            assertEquals(expected.shouldExit(i), strategy.shouldExit(live
+                    .getEnd()));
+        }
+
+        for (int size : cacheSizes(registry)) {
+            assertTrue(size <= BasicStrategy.TICKS_NEEDED);
+        }
+    }
+
+    /**
+     * @return the number of values cached by each double indicator of the
+     * registry.
+     */
+    private static int[] cacheSizes(IndicatorRegistry registry) {
+        Map<?, ?> indicators = Whitebox.getInternalState(registry,
+                "indicators");
+        return indicators.values().stream().filter(indicator -> indicator
+                instanceof DoubleIndicator).mapToInt(indicator -> ((double[])
+                Whitebox.getInternalState(indicator, "values")).length)
+                .toArray();
+    }
+
 }
@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import eu.verdelhan.ta4j.Decimal;
+import eu.verdelhan.ta4j.TimeSeries;
+import org.junit.Before;
+import org.junit.Test;
+import trader.indicators.CMOIndicator;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Created by jkahn on 2/2/16.
+ *
+ * @author Joshua Kahn
+ */
+public class CMOIndicatorTest {
+
+    private static final int TIME_FRAME = 14;
+
+    private TimeSeries series;
+
+    @Before
+    public void setup() {
+        this.series = TestSeries.randomWalk(42, 200);
+    }
+
+    @Test
+    public void testRollingSums() {
+        CMOIndicator cmo = new CMOIndicator(series, TIME_FRAME);
+        for (int i = 0; i < series.getTickCount(); i++) {
+            assertEquals(windowCMO(i), cmo.getValue(i));
+        }
+    }
+
+    @Test
+    public void testNonConsecutiveIndices() {
+        CMOIndicator cmo = new CMOIndicator(series, TIME_FRAME);
+        for (int i : new int[]{50, 51, 20, 21, 22, 199, 3, 4}) {
+            assertEquals(windowCMO(i), cmo.getValue(i));
+        }
+    }
+
+    /**
+     * Sum the changes over the whole window, as the indicator used to.
+     */
+    private Decimal windowCMO(int index) {
+        Decimal gains = Decimal.ZERO;
+        Decimal losses = Decimal.ZERO;
+        for (int i = Math.max(0, index - TIME_FRAME + 1); i <= index; i++) {
+            Decimal d = series.getTick(i).getClosePrice().minus(series
+                    .getTick(Math.max(0, i - 1)).getClosePrice());
+            if (d.compareTo(Decimal.ZERO) >= 0) {
+                gains = gains.plus(d);
+            } else {
+                losses = losses.minus(d);
+            }
+        }
+        return gains.minus(losses).dividedBy(gains.plus(losses))
+                .multipliedBy(Decimal.HUNDRED);
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import eu.verdelhan.ta4j.Decimal;
+import eu.verdelhan.ta4j.Indicator;
+import eu.verdelhan.ta4j.TimeSeries;
+import eu.verdelhan.ta4j.indicators.oscillators.AroonDownIndicator;
+import eu.verdelhan.ta4j.indicators.oscillators.AroonUpIndicator;
+import eu.verdelhan.ta4j.indicators.oscillators.StochasticOscillatorKIndicator;
+import eu.verdelhan.ta4j.indicators.simple.ClosePriceIndicator;
+import eu.verdelhan.ta4j.indicators.trackers.EMAIndicator;
+import eu.verdelhan.ta4j.indicators.trackers.MACDIndicator;
+import eu.verdelhan.ta4j.indicators.trackers.RSIIndicator;
+import eu.verdelhan.ta4j.indicators.trackers.SMAIndicator;
+import org.junit.Before;
+import org.junit.Test;
+import trader.indicators.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Joshua Kahn
+ */
+public class DoubleIndicatorTest {
+
+    private static final double DELTA = 1e-9;
+
+    private TimeSeries series;
+
+    @Before
+    public void setup() {
+        this.series = TestSeries.randomWalk(42, 500);
+    }
+
+    @Test
+    public void testMovingAverages() {
+        ClosePriceIndicator closePrice = new ClosePriceIndicator(series);
+        DoubleIndicator doubleClosePrice = new DoubleClosePriceIndicator
+                (series);
+        assertSameValues(new SMAIndicator(closePrice, 200), new
+                DoubleSMAIndicator(doubleClosePrice, 200));
+        assertSameValues(new EMAIndicator(closePrice, 26), new
+                DoubleEMAIndicator(doubleClosePrice, 26));
+        assertSameValues(new EMAIndicator(new MACDIndicator(closePrice, 9,
+                26), 18), new DoubleEMAIndicator(new DoubleMACDIndicator
+                (doubleClosePrice, 9, 26), 18));
+    }
+
+    @Test
+    public void testCMO() {
+        assertSameValues(new CMOIndicator(series, 14), new
+                DoubleCMOIndicator(series, 14));
+    }
+
+    @Test
+    public void testOscillators() {
+        ClosePriceIndicator closePrice = new ClosePriceIndicator(series);
+        DoubleIndicator doubleClosePrice = new DoubleClosePriceIndicator
+                (series);
+        assertSameValues(new StochasticOscillatorKIndicator(series, 14), new
+                DoubleStochasticOscillatorKIndicator(doubleClosePrice, 14));
+        assertSameValues(new RSIIndicator(closePrice, 14), new
+                DoubleRSIIndicator(doubleClosePrice, 14));
+    }
+
+    @Test
+    public void testAroon() {
+        DoubleIndicator closePrice = new DoubleClosePriceIndicator(series);
+        assertSameValues(new AroonUpIndicator(series, 25), new
+                DoubleAroonIndicator(closePrice, 25, true));
+        assertSameValues(new AroonDownIndicator(series, 25), new
+                DoubleAroonIndicator(closePrice, 25, false));
+    }
+
+    @Test
+    public void testPrecompute() {
+        DoubleIndicator closePrice = new DoubleClosePriceIndicator(series);
+        DoubleIndicator emaMacd = new DoubleEMAIndicator(new
+                DoubleMACDIndicator(closePrice, 9, 26), 18);
+        emaMacd.precompute();
+        DoubleIndicator lazy = new DoubleEMAIndicator(new DoubleMACDIndicator
+                (new DoubleClosePriceIndicator(series), 9, 26), 18);
+        for (int i = series.getTickCount() - 1; i >= 0; i--) {
+            assertEquals(lazy.getValue(i), emaMacd.getValue(i), 0);
+        }
+    }
+
+    @Test
+    public void testBoundedSeries() {
+        DoubleIndicator expected = new DoubleEMAIndicator(new
+                DoubleSMAIndicator(new DoubleClosePriceIndicator(series), 20),
+                9);
+        TimeSeries live = new TimeSeries("live");
+        live.setMaximumTickCount(50);
+        DoubleIndicator actual = new DoubleEMAIndicator(new
+                DoubleSMAIndicator(new DoubleClosePriceIndicator(live), 20), 9);
+        for (int i = 0; i < series.getTickCount(); i++) {
+            live.addTick(series.getTick(i));
+            assertEquals(expected.getValue(i), actual.getValue(live.getEnd()),
+                    DELTA);
+            assertEquals(expected.getValue(i - live.getTickCount() + 1),
+                    actual.getValue(i - live.getTickCount() + 1), DELTA);
+        }
+    }
+
+    @Test
+    public void testIncremental() {
+        IndicatorRegistry doubles = new IndicatorRegistry(series);
+        IndicatorRegistry incremental = new IndicatorRegistry(series, true);
+        assertSameValues(doubles.doubleSma(200), incremental.doubleSma(200));
+        assertSameValues(doubles.doubleEma(doubles.doubleMacd(9, 26), 18),
+                incremental.doubleEma(incremental.doubleMacd(9, 26), 18));
+        assertSameValues(doubles.doubleStochasticOscillatorK(14), incremental
+                .doubleStochasticOscillatorK(14));
+        assertSameValues(doubles.doubleRsi(14), incremental.doubleRsi(14));
+        assertSameValues(doubles.doubleCmo(2), incremental.doubleCmo(2));
+        assertSameValues(doubles.doubleAroon(25, true), incremental
+                .doubleAroon(25, true));
+        assertSameValues(doubles.doubleAroon(25, false), incremental
+                .doubleAroon(25, false));
+    }
+
+    private void assertSameValues(DoubleIndicator expected, DoubleIndicator
+            actual) {
+        for (int i = 0; i < series.getTickCount(); i++) {
+            assertEquals(expected.getValue(i), actual.getValue(i), DELTA);
+        }
+    }
+
+    private void assertSameValues(Indicator<Decimal> expected,
+                                  DoubleIndicator actual) {
+        for (int i = 0; i < series.getTickCount(); i++) {
+            assertEquals(expected.getValue(i).toDouble(), actual.getValue(i),
+                    DELTA);
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import eu.verdelhan.ta4j.TimeSeries;
+import org.jooq.lambda.tuple.Tuple2;
+import org.junit.Before;
+import org.junit.Test;
+import trader.exchanges.backtest.BacktestResult;
+import trader.exchanges.backtest.GeneticOptimizer;
+import trader.indicators.IndicatorRegistry;
+import trader.strategies.MomentumStrategy;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Joshua Kahn
+ */
+public class GeneticOptimizerTest {
+
+    private TimeSeries series;
+
+    @Before
+    public void setup() {
+        this.series = TestSeries.randomWalk(11, 1000);
+    }
+
+    @Test
+    public void testSameSeedSameSearch() {
+        List<Tuple2<int[], BacktestResult>> first = optimizer(5).optimize
+                (BacktestResult::getProfit);
+        List<Tuple2<int[], BacktestResult>> second = optimizer(5).optimize
+                (BacktestResult::getProfit);
+
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertArrayEquals(first.get(i).v1, second.get(i).v1);
+            assertEquals(first.get(i).v2.getProfit(), second.get(i).v2
+                    .getProfit(), 0);
+        }
+        for (int i = 1; i < first.size(); i++) {
+            assertTrue(first.get(i - 1).v2.getProfit() >= first.get(i).v2
+                    .getProfit());
+        }
+    }
+
+    @Test
+    public void testAbandonedCandidates() {
+        List<Tuple2<int[], BacktestResult>> all = optimizer(5).optimize
+                (BacktestResult::getProfit);
+        List<Tuple2<int[], BacktestResult>> kept = optimizer(5).maxDrawdown
+                (0.02).optimize(BacktestResult::getProfit);
+
+        assertTrue(kept.size() < all.size());
+        for (Tuple2<int[], BacktestResult> result : kept) {
+            assertTrue(result.v2.getMaxDrawdown() <= 0.02);
+            // Same result as a full backtest of the candidate
+            BacktestResult expected = new BacktestResult(series, 0.002, 0,
+                    strategy(new IndicatorRegistry(series), result.v1))
+                    .test();
+            assertEquals(expected.getNumberOfTrades(), result.v2
+                    .getNumberOfTrades());
+            assertEquals(expected.getProfit(), result.v2.getProfit(), 1e-9);
+        }
+    }
+
+    private GeneticOptimizer optimizer(int generations) {
+        return new GeneticOptimizer(series, 0.002, 0, new int[]{5, 5, 10, 60,
+                2}, new int[]{50, 30, 40, 90, 20},
+                GeneticOptimizerTest::strategy).populationSize(12)
+                .generations(generations).seed(42L);
+    }
+
+    private static MomentumStrategy strategy(IndicatorRegistry registry,
+                                             int[] genes) {
+        return new MomentumStrategy.Builder().aroonPeriods(genes[0])
+                .rsiPeriods(genes[1]).rsiBounds(genes[2], genes[3])
+                .stopLossThreshold(genes[4]).build(registry, true);
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import eu.verdelhan.ta4j.TimeSeries;
+import org.junit.Before;
+import org.junit.Test;
+import trader.exchanges.backtest.BacktestLoader;
+import trader.indicators.IndicatorRegistry;
+import trader.strategies.BasicStrategy;
+import trader.strategies.MomentumStrategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Joshua Kahn
+ */
+public class IndicatorRegistryTest {
+
+    private IndicatorRegistry registry;
+
+    @Before
+    public void setup() {
+        TimeSeries series = BacktestLoader.loadSeries("testUSD.csv");
+        this.registry = new IndicatorRegistry(series);
+    }
+
+    @Test
+    public void testSameParametersShared() {
+        assertSame(registry.sma(5), registry.sma(5));
+        assertNotSame(registry.sma(5), registry.sma(200));
+        assertSame(registry.ema(registry.macd(9, 26), 18), registry.ema
+                (registry.macd(9, 26), 18));
+        assertSame(registry.doubleEma(registry.doubleClosePrice(), 9),
+                registry.doubleEma(registry.doubleClosePrice(), 9));
+    }
+
+    @Test
+    public void testStrategiesShareIndicators() {
+        new BasicStrategy(registry, false);
+        new BasicStrategy(registry, true);
+        int size = registry.size();
+        new BasicStrategy(registry, false);
+        new BasicStrategy(registry, true);
+        assertEquals(size, registry.size());
+
+        // Only the Aroon, RSI and 14 period CMO indicators are new
+        new MomentumStrategy(registry, false);
+        assertEquals(size + 4, registry.size());
+    }
+
+}
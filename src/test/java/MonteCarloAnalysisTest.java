@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import eu.verdelhan.ta4j.Strategy;
+import eu.verdelhan.ta4j.trading.rules.BooleanRule;
+import org.junit.Before;
+import org.junit.Test;
+import trader.exchanges.backtest.BacktestResult;
+import trader.exchanges.backtest.MonteCarloAnalysis;
+import trader.exchanges.backtest.TradeReplayBacktest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Joshua Kahn
+ */
+public class MonteCarloAnalysisTest {
+
+    private BacktestResult result;
+
+    @Before
+    public void setup() {
+        // Entering and exiting on every other tick
+        Strategy always = new Strategy(BooleanRule.TRUE, BooleanRule.TRUE);
+        this.result = new BacktestResult(TestSeries.randomWalk(13, 500),
+                always).test();
+    }
+
+    @Test
+    public void testShuffle() {
+        MonteCarloAnalysis analysis = new MonteCarloAnalysis(result,
+                MonteCarloAnalysis.Mode.SHUFFLE, 1L).run(10000);
+
+        assertEquals(250, analysis.getNumberOfTrades());
+        // The order of the trades does not change their total profit
+        assertEquals(result.getProfit(), analysis.getProfitPercentile(0),
+                1e-9);
+        assertEquals(result.getProfit(), analysis.getProfitPercentile(100),
+                1e-9);
+        assertTrue(analysis.getDrawdownPercentile(5) <= analysis
+                .getDrawdownPercentile(95));
+        assertTrue(analysis.getDrawdownPercentile(5) > 0);
+    }
+
+    @Test
+    public void testResampleSameSeed() {
+        MonteCarloAnalysis first = new MonteCarloAnalysis(result,
+                MonteCarloAnalysis.Mode.RESAMPLE, 7L).run(10000);
+        MonteCarloAnalysis second = new MonteCarloAnalysis(result,
+                MonteCarloAnalysis.Mode.RESAMPLE, 7L).run(10000);
+
+        for (double percentile : new double[]{0, 5, 50, 95, 100}) {
+            assertEquals(first.getProfitPercentile(percentile), second
+                    .getProfitPercentile(percentile), 0);
+            assertEquals(first.getDrawdownPercentile(percentile), second
+                    .getDrawdownPercentile(percentile), 0);
+        }
+        assertTrue(first.getProfitPercentile(5) < first.getProfitPercentile
+                (95));
+    }
+
+    @Test
+    public void testCosts() {
+        // Entering at 100 and exiting at 110, with a 1% cost per order
+        Strategy always = new Strategy(BooleanRule.TRUE, BooleanRule.TRUE);
+        BacktestResult charged = new BacktestResult(TestSeries.of(100, 110),
+                0.01, 0, always).test();
+
+        MonteCarloAnalysis analysis = new MonteCarloAnalysis(charged,
+                MonteCarloAnalysis.Mode.SHUFFLE, 1L).run(10);
+        assertEquals(1, analysis.getNumberOfTrades());
+        assertEquals((1 - 0.01 - 0.01 * 0.99 * 1.1) * 1.1, analysis
+                .getProfitPercentile(50), 1e-9);
+    }
+
+    @Test
+    public void testOrderPrices() throws IOException {
+        // Entering at 102 and stopped at 96 within the next tick, with a 1%
+        // cost per order
+        TradeReplayBacktest backtest = new TradeReplayBacktest(60, 0.01, 0,
+                5, Double.POSITIVE_INFINITY, series -> new Strategy
+                (BooleanRule.TRUE, BooleanRule.FALSE));
+        String trades = "1000,102,1\n" +
+                "1060,101,1\n" +
+                "1070,96,1\n" +
+                "1080,101,1\n";
+        BacktestResult replayed = backtest.replay("test", Channels
+                .newChannel(new ByteArrayInputStream(trades.getBytes
+                        (StandardCharsets.US_ASCII))));
+
+        MonteCarloAnalysis analysis = new MonteCarloAnalysis(replayed,
+                MonteCarloAnalysis.Mode.SHUFFLE, 1L).run(10);
+        assertEquals(1, analysis.getNumberOfTrades());
+        double profit = 96D / 102D;
+        assertEquals((1 - 0.01 - 0.01 * 0.99 * profit) * profit, analysis
+                .getProfitPercentile(50), 1e-9);
+    }
+
+}
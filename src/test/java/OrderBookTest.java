@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import org.junit.Test;
+import trader.exchanges.backtest.OrderBook;
+import trader.exchanges.backtest.OrderBookSnapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Joshua Kahn
+ */
+public class OrderBookTest {
+
+    @Test
+    public void testSnapshot() {
+        OrderBook book = new OrderBook(3, 1, 1);
+        book.update(new OrderBookSnapshot(1000, new double[]{99, 98, 97,
+                96}, new double[]{1, 2, 3, 4}, new double[]{101, 102}, new
+                double[]{1, 1}));
+
+        // Walking the first two levels
+        assertEquals((99 + 98 * 2) / 3D, book.sell(3), 1e-9);
+        assertEquals(97, book.getBestBid(), 1e-9);
+        // The fourth level is beyond the capacity
+        assertEquals(97, book.sell(4), 1e-9);
+        assertTrue(Double.isNaN(book.getBestBid()));
+
+        assertEquals(101, book.buy(0.5), 1e-9);
+        // Larger than the side, the rest being filled at its last level
+        assertEquals((101 * 0.5 + 102 * 2.5) / 3D, book.buy(3), 1e-9);
+    }
+
+    @Test
+    public void testGeneratedLevels() {
+        OrderBook book = new OrderBook(100, 0.5, 2);
+        book.onTrade(1000, 400, 1);
+        // Centered on the last trade price
+        assertEquals(399.75, book.getBestBid(), 1e-9);
+        assertEquals(400.25, book.getBestAsk(), 1e-9);
+
+        // Two levels of two
+        assertEquals((400.25 * 2 + 400.75 * 2) / 4D, book.buy(4), 1e-9);
+        assertEquals(401.25, book.getBestAsk(), 1e-9);
+
+        // Generated again around the new trade
+        book.onTrade(1010, 410, 1);
+        assertEquals(410.25, book.getBestAsk(), 1e-9);
+        assertEquals(410.25, book.buy(1), 1e-9);
+        // The rest of the level at 410.25 and half the one at 410.75
+        assertEquals(1.5, book.spend(410.25 + 410.75 * 0.5), 1e-9);
+        // Selling back costs as much as buying
+        assertEquals(410 - (410.25 - 410), book.sell(1), 1e-9);
+    }
+
+    @Test
+    public void testSnapshotLifetime() {
+        OrderBook book = new OrderBook(10, 1, 1).snapshotLifetime(60);
+        book.update(new OrderBookSnapshot(1000, new double[]{99}, new
+                double[]{5}, new double[]{101}, new double[]{5}));
+
+        // The snapshot is still used
+        book.onTrade(1059, 120, 1);
+        assertEquals(101, book.buy(1), 1e-9);
+        assertEquals(99, book.getBestBid(), 1e-9);
+
+        // The snapshot expired, the levels follow the trades again
+        book.onTrade(1060, 120, 1);
+        assertEquals(119.5, book.getBestBid(), 1e-9);
+        assertEquals(120.5, book.getBestAsk(), 1e-9);
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import eu.verdelhan.ta4j.Rule;
+import eu.verdelhan.ta4j.TradingRecord;
+import eu.verdelhan.ta4j.trading.rules.AbstractRule;
+import org.junit.Test;
+import trader.strategies.rules.RulePlan;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Joshua Kahn
+ */
+public class RulePlanTest {
+
+    private static final int INDICES = 5000;
+
+    @Test
+    public void testSameResultsAsRuleTree() {
+        Random random = new Random(3);
+        CountingRule[] conditions = new CountingRule[5];
+        for (int i = 0; i < conditions.length; i++) {
+            // From rarely to often satisfied
+            conditions[i] = new CountingRule(random, (i + 1) / 6D);
+        }
+        RulePlan plan = new RulePlan();
+        // (c0 and c1 and c2) or (c2 and c3) or c4, c2 being shared
+        Rule planRule = plan.anyOf(plan.allOf(conditions[0], conditions[1],
+                conditions[2]), plan.allOf(conditions[2], conditions[3]),
+                plan.allOf(plan.onTrade(conditions[4])));
+        Rule treeRule = conditions[0].and(conditions[1]).and(conditions[2])
+                .or(conditions[2].and(conditions[3])).or(conditions[4]);
+
+        assertEquals(5, plan.size());
+        for (int i = 0; i < INDICES; i++) {
+            assertEquals("Index " + i, treeRule.isSatisfied(i), planRule
+                    .isSatisfied(i));
+        }
+    }
+
+    @Test
+    public void testConditionsEvaluatedOncePerIndex() {
+        Random random = new Random(5);
+        CountingRule shared = new CountingRule(random, 0.5);
+        CountingRule onTrade = new CountingRule(random, 0.5);
+        RulePlan plan = new RulePlan();
+        Rule first = plan.anyOf(plan.allOf(shared));
+        Rule second = plan.anyOf(plan.allOf(shared));
+        Rule stop = plan.anyOf(plan.allOf(plan.onTrade(onTrade)));
+
+        for (int i = 0; i < INDICES; i++) {
+            assertEquals(first.isSatisfied(i), second.isSatisfied(i));
+            stop.isSatisfied(i);
+            stop.isSatisfied(i);
+        }
+        assertEquals(INDICES, shared.evaluations);
+        assertEquals(2 * INDICES, onTrade.evaluations);
+    }
+
+    /**
+     * Satisfied at random indices, counting its evaluations.
+     */
+    private static class CountingRule extends AbstractRule {
+
+        private final boolean[] values = new boolean[INDICES];
+
+        private int evaluations;
+
+        CountingRule(Random random, double probability) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextDouble() < probability;
+            }
+        }
+
+        @Override
+        public boolean isSatisfied(int index, TradingRecord tradingRecord) {
+            evaluations++;
+            return values[index];
+        }
+
+    }
+
+}
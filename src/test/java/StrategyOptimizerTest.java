@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import eu.verdelhan.ta4j.TimeSeries;
+import org.jooq.lambda.tuple.Tuple2;
+import org.junit.Test;
+import trader.exchanges.backtest.BacktestResult;
+import trader.exchanges.backtest.StrategyOptimizer;
+import trader.indicators.IndicatorRegistry;
+import trader.strategies.BasicStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Joshua Kahn
+ */
+public class StrategyOptimizerTest {
+
+    @Test
+    public void testOptimize() {
+        TimeSeries series = TestSeries.randomWalk(7, 1000);
+
+        List<BasicStrategy.Builder> parameters = new ArrayList<>();
+        for (int cmo = 10; cmo <= 30; cmo += 10) {
+            for (int stopLoss = 1; stopLoss <= 3; stopLoss++) {
+                parameters.add(new BasicStrategy.Builder().cmoPeriods(cmo)
+                        .stopLossThreshold(stopLoss));
+            }
+        }
+        StrategyOptimizer<BasicStrategy.Builder> optimizer = new
+                StrategyOptimizer<>(series, 0.002, 0, (registry, builder) ->
+                builder.build(registry, true));
+        List<Tuple2<BasicStrategy.Builder, BacktestResult>> ranked =
+                optimizer.optimize(parameters, BacktestResult::getProfit);
+
+        assertEquals(parameters.size(), ranked.size());
+        for (int i = 1; i < ranked.size(); i++) {
+            assertTrue(ranked.get(i - 1).v2.getProfit() >= ranked.get(i).v2
+                    .getProfit());
+        }
+        // Same results as backtesting each strategy on its own
+        for (Tuple2<BasicStrategy.Builder, BacktestResult> result : ranked) {
+            BacktestResult expected = new BacktestResult(series, 0.002, 0,
+                    result.v1.build(new IndicatorRegistry(series), true))
+                    .test();
+            assertEquals(expected.getNumberOfTrades(), result.v2
+                    .getNumberOfTrades());
+            assertEquals(expected.getProfit(), result.v2.getProfit(), 1e-9);
+        }
+    }
+
+}
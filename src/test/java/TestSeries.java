@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import eu.verdelhan.ta4j.Tick;
+import eu.verdelhan.ta4j.TimeSeries;
+import org.joda.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The series of one minute ticks shared by the tests.
+ *
+ * @author Joshua Kahn
+ */
+final class TestSeries {
+
+    private TestSeries() {
+    }
+
+    /**
+     * @param seed      the seed of the walk.
+     * @param tickCount the number of ticks.
+     * @return a series starting at 400, each close price moving by up to
+     * one from the previous one.
+     */
+    static TimeSeries randomWalk(long seed, int tickCount) {
+        Random random = new Random(seed);
+        double[] closePrices = new double[tickCount];
+        double price = 400;
+        for (int i = 0; i < tickCount; i++) {
+            price += random.nextInt(200) / 100.0 - 1;
+            closePrices[i] = price;
+        }
+        return of(closePrices);
+    }
+
+    /**
+     * @param tickCount the number of ticks.
+     * @return a series rising by one on each tick, from 400.
+     */
+    static TimeSeries rising(int tickCount) {
+        double[] closePrices = new double[tickCount];
+        for (int i = 0; i < tickCount; i++) {
+            closePrices[i] = 400 + i;
+        }
+        return of(closePrices);
+    }
+
+    /**
+     * @param closePrices the close price of each tick, which also opens it.
+     * @return a series of ticks ranging one above and below their close.
+     */
+    static TimeSeries of(double... closePrices) {
+        List<Tick> ticks = new ArrayList<>();
+        for (int i = 0; i < closePrices.length; i++) {
+            double price = closePrices[i];
+            ticks.add(new Tick(new DateTime(60000L * (i + 1)), price, price
+                    + 1, price - 1, price, 1));
+        }
+        return new TimeSeries("test", ticks);
+    }
+
+}
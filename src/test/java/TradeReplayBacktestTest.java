@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Joshua Kahn
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import eu.verdelhan.ta4j.Decimal;
+import eu.verdelhan.ta4j.Strategy;
+import eu.verdelhan.ta4j.Trade;
+import eu.verdelhan.ta4j.TradingRecord;
+import eu.verdelhan.ta4j.trading.rules.BooleanRule;
+import org.junit.Before;
+import org.junit.Test;
+import trader.exchanges.backtest.BacktestResult;
+import trader.exchanges.backtest.OrderBook;
+import trader.exchanges.backtest.OrderBookSnapshot;
+import trader.exchanges.backtest.TradeReplayBacktest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Joshua Kahn
+ */
+public class TradeReplayBacktestTest {
+
+    private TradeReplayBacktest backtest;
+
+    @Before
+    public void setup() {
+        // Entering on every tick, only exiting by the 5% stop loss
+        this.backtest = new TradeReplayBacktest(60, 0, 0, 5, Double
+                .POSITIVE_INFINITY, series -> new Strategy(BooleanRule.TRUE,
+                BooleanRule.FALSE));
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        String trades = "1000,100,1\n" +
+                "1030,102,2\n" +
+                // Closing the first tick, entering at 102
+                "1060,101,1\n" +
+                // Older than the second tick
+                "1050,90,1\n" +
+                // Crossing the stop loss at 96.9
+                "1070,96,1\n" +
+                "1080,90,1\n" +
+                "1130,98,1\n";
+        BacktestResult result = this.backtest.replay("test", Channels
+                .newChannel(new ByteArrayInputStream(trades.getBytes
+                        (StandardCharsets.US_ASCII))));
+
+        assertEquals(6, this.backtest.getReplayedTrades());
+        assertEquals(1, this.backtest.getSkippedTrades());
+        assertEquals(1, this.backtest.getStops());
+        assertEquals(3, result.getTimeSeries().getTickCount());
+        assertEquals(3, result.getTimeSeries().getTick(1).getTrades());
+
+        TradingRecord record = result.getTradingRecord(0);
+        assertEquals(1, record.getTradeCount());
+        Trade trade = record.getLastTrade();
+        assertEquals(0, trade.getEntry().getIndex());
+        assertEquals(Decimal.valueOf(102), trade.getEntry().getPrice());
+        // Exited on the crossing trade, not at the close of the tick
+        assertEquals(1, trade.getExit().getIndex());
+        assertEquals(Decimal.valueOf(96), trade.getExit().getPrice());
+        // Entered again at the close of the second tick
+        assertEquals(1, record.getCurrentTrade().getEntry().getIndex());
+        assertEquals(96D / 102D, result.getProfit(), 1e-9);
+    }
+
+    @Test
+    public void testOrderBook() throws IOException {
+        // Levels of one unit every unit of price
+        this.backtest.orderBook(new OrderBook(10, 1, 1), 1000);
+        String trades = "1000,100,1\n" +
+                // Entering with 950, walking 10 levels from 100.5
+                "1060,100,1\n" +
+                "1120,102,1\n";
+        BacktestResult result = this.backtest.replay("test", Channels
+                .newChannel(new ByteArrayInputStream(trades.getBytes
+                        (StandardCharsets.US_ASCII))));
+
+        Trade trade = result.getTradingRecord(0).getCurrentTrade();
+        double amount = 9 + 9.5 / 109.5;
+        assertEquals(amount, trade.getEntry().getAmount().toDouble(), 1e-9);
+        assertEquals(950 / amount, trade.getEntry().getPrice().toDouble(),
+                1e-9);
+        // The cash left is never spent
+        assertTrue(this.backtest.getCash() >= 0D);
+        assertEquals(50, this.backtest.getCash(), 1e-9);
+    }
+
+    @Test
+    public void testSnapshots() throws IOException {
+        // A single ask level of 20 at 110, recorded at the first tick close
+        this.backtest.orderBook(new OrderBook(10, 1, 1), 1000).snapshots
+                (Collections.singletonList(new OrderBookSnapshot(1060, new
+                        double[]{99}, new double[]{20}, new double[]{110}, new
+                        double[]{20})));
+        String trades = "1000,109,1\n" +
+                "1060,109,1\n" +
+                "1120,109,1\n";
+        BacktestResult result = this.backtest.replay("test", Channels
+                .newChannel(new ByteArrayInputStream(trades.getBytes
+                        (StandardCharsets.US_ASCII))));
+
+        // Filled against the snapshot, not the generated levels
+        Trade trade = result.getTradingRecord(0).getCurrentTrade();
+        assertEquals(110, trade.getEntry().getPrice().toDouble(), 1e-9);
+        assertEquals(950 / 110D, trade.getEntry().getAmount().toDouble(),
+                1e-9);
+    }
+
+}